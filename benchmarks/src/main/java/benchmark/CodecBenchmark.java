@@ -0,0 +1,147 @@
+package benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import indexing.BlockReader;
+import indexing.PostingsCodec;
+import indexing.PostingsCodecs;
+import indexing.SPIMI;
+
+/**
+ * Decodes all the postings of the index of the first documents of the collection with each postings codec.
+ * Every codec encodes them in a direct buffer, like the mapped postings file, and checks that they decode back
+ * to the same postings before the runs. The score is the number of times all of them are decoded per second,
+ * the Counters give the integers decoded per second (2 per posting, doc ID and frequency) and the encoded bytes
+ * read per second. They are in the JSON results with the score: the size of the encoded postings is bytes / score,
+ * and the bits per integer are 8 * bytes / integers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CodecBenchmark {
+
+	/**
+	 * What each decodeAll() call decoded, JMH reports them per second.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Counters {
+
+		public long integers;
+		public long bytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			this.integers = 0;
+			this.bytes = 0;
+		}
+	}
+
+	@Param({"21578"})
+	public int docs;
+
+	@Param({"vbyte", "gamma", "delta", "simple9", "simple16", "pfordelta"})
+	public String codec;
+
+	private PostingsCodec postingsCodec;
+	private final List<int[]> docIDs = new ArrayList<int[]>();
+	private final List<int[]> frequencies = new ArrayList<int[]>();
+	private ByteBuffer buffer;
+	private long postingsCount;
+	private int[] decodedDocIDs;
+	private int[] decodedFrequencies;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.postingsCodec = PostingsCodecs.forName(this.codec);
+		Path directory = Corpus.createDirectory();
+		this.postingsCount = 0;
+		int longest = 0;
+		this.docIDs.clear();
+		this.frequencies.clear();
+		try {
+			Corpus.buildIndex(Corpus.getDocuments(this.docs), 650000, directory);
+			try (BlockReader reader = new BlockReader(directory.resolve(SPIMI.DICTIONARY_FILE).toString())) {
+				while(reader.next()){
+					int length = reader.getPostingsLength();
+					this.docIDs.add(Arrays.copyOf(reader.getPostings(), length));
+					this.frequencies.add(Arrays.copyOf(reader.getFrequencies(), length));
+					this.postingsCount += length;
+					longest = Math.max(longest, length);
+				}
+			}
+		} finally {
+			Corpus.deleteDirectory(directory);
+		}
+
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		for(int i = 0; i < this.docIDs.size(); i++){
+			this.postingsCodec.encodePostings(this.docIDs.get(i), this.frequencies.get(i), this.docIDs.get(i).length, out);
+		}
+		out.flush();
+		this.buffer = ByteBuffer.allocateDirect(bytes.size());
+		this.buffer.put(bytes.toByteArray());
+		this.decodedDocIDs = new int[longest];
+		this.decodedFrequencies = new int[longest];
+
+		this.check();
+	}
+
+	private void check() {
+		int position = 0;
+		for(int i = 0; i < this.docIDs.size(); i++){
+			int length = this.docIDs.get(i).length;
+			position = this.postingsCodec.decodePostings(this.buffer, position, this.decodedDocIDs, this.decodedFrequencies, length);
+			if(!Arrays.equals(Arrays.copyOf(this.decodedDocIDs, length), this.docIDs.get(i))
+					|| !Arrays.equals(Arrays.copyOf(this.decodedFrequencies, length), this.frequencies.get(i))){
+				throw new IllegalStateException(this.codec + " did not decode the postings of term " + i);
+			}
+		}
+		if(position != this.buffer.capacity()){
+			throw new IllegalStateException(this.codec + " decoded " + position + " bytes of " + this.buffer.capacity());
+		}
+	}
+
+	//the sum of the last doc IDs, so the decoding is used
+	@Benchmark
+	public long decodeAll(Counters counters) {
+		long sum = 0;
+		int position = 0;
+		for(int i = 0; i < this.docIDs.size(); i++){
+			int length = this.docIDs.get(i).length;
+			position = this.postingsCodec.decodePostings(this.buffer, position, this.decodedDocIDs, this.decodedFrequencies, length);
+			if(length > 0){
+				sum += this.decodedDocIDs[length - 1] + this.decodedFrequencies[length - 1];
+			}
+		}
+		counters.integers += 2 * this.postingsCount;
+		counters.bytes += position;
+		return sum;
+	}
+}
@@ -0,0 +1,127 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import indexing.PostingsList;
+import indexing.SPIMI;
+import tokenizer.DocumentIndex;
+import tokenizer.Tokenizer;
+
+/**
+ * The documents of the Reuters collection the benchmarks run on, and the blocks and indexes built from them
+ * in temporary directories. The files are tokenized in order the first time their documents are needed,
+ * and kept for the next benchmarks of the same JVM.
+ * The collection is read from the resources directory, -Dbenchmark.collection=dir to read it from elsewhere.
+ */
+public class Corpus {
+
+	public static final String COLLECTION_PROPERTY = "benchmark.collection";
+	public static final String DEFAULT_DIRECTORY = "resources";
+
+	private static List<String> files;
+	private static int filesRead;
+	private static final List<DocumentIndex> documents = new ArrayList<DocumentIndex>();
+
+	private Corpus(){
+	}
+
+	/**
+	 * @return the paths of the collection files, sorted by name
+	 * @throws IOException if the directory can not be listed or has no collection file
+	 */
+	public static synchronized List<String> getFiles() throws IOException {
+		if(files == null){
+			String directory = System.getProperty(COLLECTION_PROPERTY, DEFAULT_DIRECTORY);
+			files = Tokenizer.findCollectionFiles(directory);
+			if(files.isEmpty()){
+				throw new IOException(directory + " has no collection file");
+			}
+		}
+		return files;
+	}
+
+	/**
+	 * @param count
+	 * @return the first count documents of the collection, all of them if it has fewer
+	 * @throws IOException if a file can not be read
+	 */
+	public static synchronized List<DocumentIndex> getDocuments(int count) throws IOException {
+		List<String> files = getFiles();
+		while(documents.size() < count && filesRead < files.size()){
+			Tokenizer tokenizer = new Tokenizer(files.get(filesRead++));
+			tokenizer.readDocuments();
+			documents.addAll(tokenizer.getDocumentList());
+		}
+		return new ArrayList<DocumentIndex>(documents.subList(0, Math.min(count, documents.size())));
+	}
+
+	/**
+	 * Writes the blocks of the documents in the directory, on one thread.
+	 * @param documents
+	 * @param memorySize budget of a block in bytes
+	 * @param directory
+	 * @return the SPIMI instance that wrote the blocks, to merge them
+	 */
+	public static SPIMI invert(List<DocumentIndex> documents, int memorySize, Path directory) {
+		SPIMI spimi = new SPIMI(0, memorySize);
+		spimi.setDirectory(directory);
+		Iterator<DocumentIndex> stream = documents.iterator();
+		while(stream.hasNext()){
+			spimi.SPIMIInvert(stream);
+		}
+		return spimi;
+	}
+
+	/**
+	 * Builds the index of the documents in the directory, like Main does.
+	 * @param documents
+	 * @param memorySize budget of a block in bytes
+	 * @param directory
+	 * @throws IOException
+	 */
+	public static void buildIndex(List<DocumentIndex> documents, int memorySize, Path directory) throws IOException {
+		invert(documents, memorySize, directory).mergeAllBlocks();
+	}
+
+	/**
+	 * @param dictionary
+	 * @return the terms of the dictionary, the most frequent first
+	 */
+	public static List<String> termsByDocumentFrequency(Map<String, PostingsList> dictionary) {
+		List<String> terms = new ArrayList<String>(dictionary.keySet());
+		terms.sort((term0, term1) -> Integer.compare(dictionary.get(term1).size(), dictionary.get(term0).size()));
+		return terms;
+	}
+
+	/**
+	 * @return a new temporary directory for the blocks and the index of a benchmark
+	 * @throws IOException
+	 */
+	public static Path createDirectory() throws IOException {
+		return Files.createTempDirectory("spimi-benchmark");
+	}
+
+	/**
+	 * Deletes a directory made by createDirectory() with its files.
+	 * @param directory
+	 * @throws IOException
+	 */
+	public static void deleteDirectory(Path directory) throws IOException {
+		if(directory == null || !Files.exists(directory)){
+			return;
+		}
+		try (Stream<Path> paths = Files.walk(directory)) {
+			for(Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator){
+				Files.delete(path);
+			}
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import indexing.SPIMI;
+import tokenizer.DocumentIndex;
+
+/**
+ * SPIMI.SPIMIInvert on the first documents of the collection, until they are all in blocks.
+ * Writing the blocks is part of it, they are written in a temporary directory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class InvertBenchmark {
+
+	@Param({"2000", "21578"})
+	public int docs;
+
+	@Param({"650000", "5000000"})
+	public int memory;
+
+	private List<DocumentIndex> documents;
+	private Path directory;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.documents = Corpus.getDocuments(this.docs);
+		this.directory = Corpus.createDirectory();
+	}
+
+	@Benchmark
+	public SPIMI spimiInvert() {
+		return Corpus.invert(this.documents, this.memory, this.directory);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Corpus.deleteDirectory(this.directory);
+	}
+}
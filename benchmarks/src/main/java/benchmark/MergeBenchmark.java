@@ -0,0 +1,66 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import indexing.PostingsCodecs;
+import indexing.SPIMI;
+
+/**
+ * SPIMI.mergeAllBlocks on the blocks of the first documents of the collection: the k-way merge writing the dictionary,
+ * the terms and postings files with the postings codec, and the document lengths. The blocks are written once,
+ * before the runs, every run merges them again in the same directory. The totals mergeAllBlocks prints are turned off.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MergeBenchmark {
+
+	@Param({"2000", "21578"})
+	public int docs;
+
+	@Param({"650000", "5000000"})
+	public int memory;
+
+	@Param({"vbyte"})
+	public String codec;
+
+	private Path directory;
+	private SPIMI spimi;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.directory = Corpus.createDirectory();
+		this.spimi = Corpus.invert(Corpus.getDocuments(this.docs), this.memory, this.directory);
+		this.spimi.setPostingsCodec(PostingsCodecs.forName(this.codec));
+		this.spimi.setPrintCounts(false);
+	}
+
+	//the merge only writes files, there is nothing to return
+	@Benchmark
+	public void mergeAllBlocks() throws IOException {
+		this.spimi.mergeAllBlocks();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Corpus.deleteDirectory(this.directory);
+	}
+}
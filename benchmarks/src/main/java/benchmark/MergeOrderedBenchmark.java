@@ -0,0 +1,79 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import indexing.PostingsList;
+import indexing.SPIMI;
+
+/**
+ * SPIMI.mergeOrdered on the postings of the most frequent terms of the first documents of the collection,
+ * merged two by two. The score is the time of one merge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MergeOrderedBenchmark {
+
+	private static final int TERMS = 64;
+
+	@Param({"2000", "21578"})
+	public int docs;
+
+	private final List<List<Integer>> postings = new ArrayList<List<Integer>>();
+
+	@Setup
+	public void setUp() throws IOException {
+		Path directory = Corpus.createDirectory();
+		try {
+			Corpus.buildIndex(Corpus.getDocuments(this.docs), 650000, directory);
+			Map<String, PostingsList> dictionary = new SPIMI(0, 0).readBlockAndConvertToDictionary(directory.resolve(SPIMI.DICTIONARY_FILE).toString());
+
+			this.postings.clear();
+			for(String term : Corpus.termsByDocumentFrequency(dictionary).subList(0, TERMS)){
+				List<Integer> docIDs = new ArrayList<Integer>();
+				for(int docID : dictionary.get(term).toArray()){
+					docIDs.add(docID);
+				}
+				this.postings.add(docIDs);
+			}
+		} finally {
+			Corpus.deleteDirectory(directory);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(TERMS / 2)
+	public void mergeOrdered(Blackhole blackhole) {
+		for(int i = 0; i < TERMS; i += 2){
+			blackhole.consume(SPIMI.mergeOrdered(this.postings.get(i), this.postings.get(i + 1)));
+		}
+	}
+
+	@TearDown
+	public void tearDown() {
+		this.postings.clear();
+	}
+}
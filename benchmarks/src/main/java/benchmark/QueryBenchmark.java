@@ -0,0 +1,122 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import indexing.DocumentLengths;
+import indexing.PostingsList;
+import indexing.SPIMI;
+import query.QueryCommand;
+import query.QueryResultCache;
+
+/**
+ * The keyword, AND and OR queries of QueryCommand on the index of the first documents of the collection,
+ * read on the heap or memory mapped. The queries are made of terms drawn from the most frequent ones,
+ * always the same for the same index, and the result cache is off so every query is run.
+ * The score is the time of one query.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QueryBenchmark {
+
+	private static final int QUERIES = 200;
+	private static final int FREQUENT_TERMS = 1000;
+
+	@Param({"2000", "21578"})
+	public int docs;
+
+	@Param({"keyword", "and", "or"})
+	public String type;
+
+	@Param({"heap", "mapped"})
+	public String index;
+
+	private Path directory;
+	private QueryCommand queryCommand;
+	private final List<String> queries = new ArrayList<String>();
+
+	@Setup
+	public void setUp() throws IOException {
+		this.directory = Corpus.createDirectory();
+		Corpus.buildIndex(Corpus.getDocuments(this.docs), 650000, this.directory);
+		Map<String, PostingsList> dictionary = new SPIMI(0, 0).readBlockAndConvertToDictionary(this.directory.resolve(SPIMI.DICTIONARY_FILE).toString());
+
+		this.queryCommand = new QueryCommand();
+		this.queryCommand.setResultCache(new QueryResultCache(0));
+		this.queryCommand.setDocumentLengths(DocumentLengths.read(this.directory.resolve(SPIMI.DOCUMENT_LENGTHS_FILE).toString()));
+		if(this.index.equals("heap")){
+			this.queryCommand.setDictionary(dictionary);
+		}else if(this.index.equals("mapped")){
+			this.queryCommand.openIndex(this.directory.resolve(SPIMI.TERMS_FILE).toString(), this.directory.resolve(SPIMI.POSTINGS_FILE).toString());
+		}else{
+			throw new IllegalArgumentException(this.index + " is not an index, heap or mapped");
+		}
+
+		String operator;
+		if(this.type.equals("keyword")){
+			operator = null;
+		}else if(this.type.equals("and")){
+			operator = " AND ";
+		}else if(this.type.equals("or")){
+			operator = " OR ";
+		}else{
+			throw new IllegalArgumentException(this.type + " is not a query type, keyword, and or or");
+		}
+
+		List<String> terms = Corpus.termsByDocumentFrequency(dictionary);
+		terms = terms.subList(0, Math.min(FREQUENT_TERMS, terms.size()));
+		Random random = new Random(42);
+		this.queries.clear();
+		for(int i = 0; i < QUERIES; i++){
+			String query = terms.get(random.nextInt(terms.size()));
+			if(operator != null){
+				query += operator + terms.get(random.nextInt(terms.size()));
+			}
+			this.queries.add(query);
+		}
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(QUERIES)
+	public void query(Blackhole blackhole) {
+		for(String query : this.queries){
+			if(this.type.equals("keyword")){
+				blackhole.consume(this.queryCommand.performKeywordQuery(query));
+			}else if(this.type.equals("and")){
+				blackhole.consume(this.queryCommand.performAndQuery(query));
+			}else{
+				blackhole.consume(this.queryCommand.performOrQuery(query));
+			}
+		}
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		this.queryCommand = null;
+		Corpus.deleteDirectory(this.directory);
+	}
+}
@@ -0,0 +1,59 @@
+package benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import indexing.PostingsList;
+import indexing.SPIMI;
+
+/**
+ * SPIMI.readBlockAndConvertToDictionary on the dictionary of the first documents of the collection,
+ * the load of the whole dictionary on the heap.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ReadDictionaryBenchmark {
+
+	@Param({"2000", "21578"})
+	public int docs;
+
+	private final SPIMI spimi = new SPIMI(0, 0);
+	private Path directory;
+	private String dictionaryFile;
+
+	@Setup
+	public void setUp() throws IOException {
+		this.directory = Corpus.createDirectory();
+		Corpus.buildIndex(Corpus.getDocuments(this.docs), 650000, this.directory);
+		this.dictionaryFile = this.directory.resolve(SPIMI.DICTIONARY_FILE).toString();
+	}
+
+	@Benchmark
+	public Map<String, PostingsList> readBlockAndConvertToDictionary() {
+		return this.spimi.readBlockAndConvertToDictionary(this.dictionaryFile);
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		Corpus.deleteDirectory(this.directory);
+	}
+}
@@ -0,0 +1,52 @@
+package benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import tokenizer.Tokenizer;
+
+/**
+ * Tokenizer.readDocuments on the first files of the collection, one after the other on one thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(value = 2, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TokenizerBenchmark {
+
+	@Param({"1", "22"})
+	public int files;
+
+	private List<String> fileNames;
+
+	@Setup
+	public void setUp() throws IOException {
+		List<String> collection = Corpus.getFiles();
+		this.fileNames = collection.subList(0, Math.min(this.files, collection.size()));
+	}
+
+	@Benchmark
+	public void readDocuments(Blackhole blackhole) throws IOException {
+		for(String fileName : this.fileNames){
+			Tokenizer tokenizer = new Tokenizer(fileName);
+			tokenizer.readDocuments();
+			blackhole.consume(tokenizer.getDocumentList());
+		}
+	}
+}
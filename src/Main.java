@@ -1,20 +1,48 @@
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Iterator;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.Future;
 
 import tokenizer.DocumentIndex;
+import tokenizer.DocumentQueue;
 import tokenizer.Tokenizer;
+import indexing.DocumentLengths;
+import indexing.IndexingMetrics;
+import indexing.PostingsCodecs;
 import indexing.SPIMI;
 import query.QueryCommand;
+import server.QueryServer;
 
 public class Main {
 
+	// where the Reuters collection files (*.sgm) are
+	public static final String COLLECTION_DIRECTORY = "resources";
+
+	// -Dpostings.codec=pfordelta chooses the compression of the postings when the index is built
+	public static final String POSTINGS_CODEC_PROPERTY = "postings.codec";
+
+	// summary of the indexing metrics, in JSON, written next to the index
+	public static final String METRICS_FILE = "metrics.json";
+
 	public static void main(String[] args) {
 
+		// "serve [port]" starts the query server on the index built before
+		if (args.length > 0 && args[0].equals("serve")) {
+			try {
+				startQueryServer(args.length > 1 ? Integer.parseInt(args[1]) : QueryServer.DEFAULT_PORT);
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+			return;
+		}
+
 		// Tokenizing is split into multiple threads of thousands of documents.
 		// So it is faster.
 		// Comment or uncomment this piece of code to tokenize and run the
@@ -22,15 +50,14 @@ public class Main {
 		/*
 		 * try { 
 		 * 
-		 * //Tokenize the reuters collection 
-		 * List<DocumentIndex> documents = tokenizeAllDocuments();
-		 * 
-		 * //Run spimi with the relevant documents 
-		 * runSPIMIalgorithm(documents);
+		 * //Tokenize the reuters collection and run spimi on the documents as they are tokenized
+		 * runIndexingPipeline();
 		 * 
 		 * } 
 		 * catch (InterruptedException e) 
 		 * { e.printStackTrace(); }
+		 * catch(ExecutionException e) 
+		 * { e.printStackTrace(); }
 		 * catch(IOException e) 
 		 * { e.printStackTrace(); }
 		 */
@@ -40,55 +67,141 @@ public class Main {
 
 	/**
 	 * This method tokenizes all of the given Reuters collection using the
-	 * Tokenizer.java class.
+	 * Tokenizer.java class. Every file is a task on a work stealing pool, the
+	 * results are put together in docID order once all the tasks are done.
 	 * 
 	 * @return a list of document indexes --> terms with their associated
-	 *         docID's
+	 *         docID's, sorted by docID
 	 * @throws InterruptedException
+	 * @throws IOException
+	 *             if the collection could not be listed or if any file failed,
+	 *             every failure is attached to it
 	 */
-	public static List<DocumentIndex> tokenizeAllDocuments() throws InterruptedException {
-		List<DocumentIndex> allDocuments = new ArrayList<DocumentIndex>();
-
-		// manage the pool of threads and start the SPIMI when we're done.
-		ExecutorService es = Executors.newCachedThreadPool();
-		for (int i = 0; i < 22; i++) {
-			final int iterator = i;
-			Runnable task = () -> {
-				String threadName = Thread.currentThread().getName();
-				System.out.println("Hello " + threadName);
+	public static List<DocumentIndex> tokenizeAllDocuments() throws InterruptedException, IOException {
+		return tokenizeAllDocuments(new IndexingMetrics());
+	}
 
-				Tokenizer tokenizer = new Tokenizer("reut2-0" + String.format("%02d", iterator) + ".sgm");
+	/**
+	 * Tokenizes the collection like tokenizeAllDocuments(), the time of every
+	 * file is counted in the metrics, which are registered over JMX.
+	 * 
+	 * @param metrics
+	 *            to pass on to runSPIMIalgorithm afterwards
+	 * @return a list of document indexes, sorted by docID
+	 * @throws InterruptedException
+	 * @throws IOException
+	 *             if the collection could not be listed or if any file failed
+	 */
+	public static List<DocumentIndex> tokenizeAllDocuments(IndexingMetrics metrics) throws InterruptedException, IOException {
+		metrics.register();
+		List<String> files = Tokenizer.findCollectionFiles(COLLECTION_DIRECTORY);
+
+		List<Callable<List<DocumentIndex>>> tasks = new ArrayList<Callable<List<DocumentIndex>>>();
+		for (String file : files) {
+			tasks.add(() -> {
+				long start = System.nanoTime();
+				Tokenizer tokenizer = new Tokenizer(file);
 				tokenizer.readDocuments();
+				metrics.fileTokenized(file, tokenizer.getDocumentList().size(), start, System.nanoTime());
+				return tokenizer.getDocumentList();
+			});
+		}
 
-				allDocuments.addAll(tokenizer.getDocumentList());
+		// each task has its own list, so nothing is shared between the threads
+		ExecutorService es = Executors.newWorkStealingPool();
+		List<Future<List<DocumentIndex>>> results;
+		try {
+			results = es.invokeAll(tasks);
+		} finally {
+			es.shutdownNow();
+		}
 
+		List<DocumentIndex> allDocuments = new ArrayList<DocumentIndex>();
+		IOException failure = null;
+		for (int i = 0; i < results.size(); i++) {
+			try {
+				allDocuments.addAll(results.get(i).get());
+			} catch (ExecutionException e) {
+				if (failure == null) {
+					failure = new IOException("Failed to tokenize the collection");
+				}
+				failure.addSuppressed(new IOException(files.get(i), e.getCause()));
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
+
+		allDocuments.sort(Comparator.comparingInt(docIndex -> Integer.parseInt(docIndex.getDocID())));
+		return allDocuments;
+	}
+
+	/**
+	 * Tokenizes the Reuters collection and runs SPIMI-Invert at the same time.
+	 * The tokenizer threads put the documents of each file in a bounded queue and the
+	 * inverting threads take them as they arrive, so the whole collection is never in memory.
+	 * The metrics of the run are registered over JMX, printed and written to METRICS_FILE at the end.
+	 * 
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 *             if a tokenizing or inverting thread failed
+	 * @throws IOException
+	 *             if the collection could not be listed or the blocks could
+	 *             not be merged into the index
+	 */
+	public static void runIndexingPipeline() throws InterruptedException, ExecutionException, IOException {
+		IndexingMetrics metrics = new IndexingMetrics();
+		metrics.register();
+
+		List<String> files = Tokenizer.findCollectionFiles(COLLECTION_DIRECTORY);
+		int threads = Runtime.getRuntime().availableProcessors();
+		DocumentQueue queue = new DocumentQueue(2 * threads, files.size());
+
+		// the tokenizers are the producers of the queue
+		ExecutorService es = Executors.newFixedThreadPool(threads);
+		List<Future<?>> tasks = new ArrayList<Future<?>>();
+		for (String file : files) {
+			Callable<Void> task = () -> {
+				try {
+					long start = System.nanoTime();
+					Tokenizer tokenizer = new Tokenizer(file);
+					tokenizer.readDocuments();
+					metrics.fileTokenized(file, tokenizer.getDocumentList().size(), start, System.nanoTime());
+					queue.put(tokenizer.getDocumentList());
+				} finally {
+					queue.producerDone();
+				}
+				return null;
 			};
-			es.execute(task);
+			tasks.add(es.submit(task));
 		}
 		es.shutdown();
 
-		// when the tokenizing has finished
-		@SuppressWarnings("unused")
-		boolean finished = es.awaitTermination(1, TimeUnit.MINUTES);
+		// the inverters are the consumers
+		SPIMI spimi = new SPIMI(650000, 650000);
+		spimi.setPostingsCodec(PostingsCodecs.forName(System.getProperty(POSTINGS_CODEC_PROPERTY, PostingsCodecs.DEFAULT.getName())));
+		spimi.setMetrics(metrics);
+		try {
+			spimi.parallelSPIMIInvert(queue, threads);
+			for (Future<?> task : tasks) {
+				task.get();
+			}
+		} finally {
+			es.shutdownNow();
+		}
 
-		// all documents are tokenized asynchronously for fast execution
-		return allDocuments;
+		// This will write the dictionary to disk.
+		spimi.mergeAllBlocks();
+		reportIndexingMetrics(metrics);
 	}
 
 	/**
-	 * To start performing the test queries for our dictionary. This might throw
-	 * a nullpointerexception, in which there are no documents matching the
-	 * query. (This will be improved if this project has a second version, for
-	 * the moment i ran out of time.)
+	 * To start performing the test queries for our dictionary. A query without
+	 * any matching document gives an empty list.
 	 */
 	public static void performTestQueries() {
 
-		SPIMI spimi = new SPIMI(0, 0);
-
-		QueryCommand qc = new QueryCommand();
-		qc.setDictionary(spimi.readBlockAndConvertToDictionary("dictionary.txt"));
-
-		// NULL MEANS THERE ARE NO RESULTS!
+		QueryCommand qc = loadQueryCommand();
 
 		// Uncomment this to test yourself.
 		 //performTestQueries(qc); //designed by myself
@@ -97,6 +210,54 @@ public class Main {
 
 	}
 
+	/**
+	 * Opens the index and the document lengths written by the indexer. The
+	 * terms and postings files are memory mapped, so nothing is read before
+	 * the queries need it. An index built before they existed is read from the
+	 * dictionary file into memory.
+	 * 
+	 * @return a QueryCommand on the index
+	 */
+	public static QueryCommand loadQueryCommand() {
+		QueryCommand qc = new QueryCommand();
+		try {
+			qc.setDocumentLengths(DocumentLengths.read(SPIMI.DOCUMENT_LENGTHS_FILE));
+		} catch (IOException e) {
+			// the ranked queries need the index to be built again
+			e.printStackTrace();
+		}
+
+		if (Files.exists(Paths.get(SPIMI.TERMS_FILE))) {
+			try {
+				long start = System.nanoTime();
+				qc.openIndex(SPIMI.TERMS_FILE, SPIMI.POSTINGS_FILE);
+				System.out.println("Index opened in " + (System.nanoTime() - start) / 1000 + " us, "
+						+ qc.getIndex().getTermCount() + " terms");
+				return qc;
+			} catch (IOException e) {
+				e.printStackTrace();
+			}
+		}
+		SPIMI spimi = new SPIMI(0, 0);
+		qc.setDictionary(spimi.readBlockAndConvertToDictionary(SPIMI.DICTIONARY_FILE));
+		return qc;
+	}
+
+	/**
+	 * Loads the index once and serves the queries over HTTP until the process is stopped.
+	 * 
+	 * @param port
+	 * @throws IOException
+	 *             if the port can not be opened
+	 */
+	public static void startQueryServer(int port) throws IOException {
+		QueryCommand qc = loadQueryCommand();
+		QueryServer server = new QueryServer(qc, port);
+		server.start();
+		Runtime.getRuntime().addShutdownHook(new Thread(() -> server.stop(1)));
+		System.out.println("Query server listening on http://localhost:" + server.getPort() + "/");
+	}
+
 	/**
 	 * Queries designed by myself to test.
 	 * (the three deliverables to deliver -- queries)
@@ -108,7 +269,7 @@ public class Main {
 		String query1 = "Honda";
 		List<Integer> postings1 = qc.performKeywordQuery(query1);
 		String testQuery1;
-		if(postings1!=null){
+		if(!postings1.isEmpty()){
 		testQuery1 = postings1.toString(); 
 		System.out.println("Keyword query "+ query1 +" result: " + testQuery1);
 		}else{
@@ -119,23 +280,30 @@ public class Main {
 		String query2 = "honda AND car";
 		List<Integer> postings2 = qc.performAndQuery(query2);
 		String testQuery2;
-		if(postings2!=null){
+		if(!postings2.isEmpty()){
 		testQuery2 = postings2.toString(); 
 		System.out.println("Keyword query "+ query2 +" result: " + testQuery2);
 		}else{
 			System.out.println("No result for: " + query2);
 		}
+		System.out.println(qc.explain(query2));
 
 		//3rd query deliverable.
 		String query3 = "IRS OR STC";
 		List<Integer> postings3 = qc.performOrQuery(query3);
 		String testQuery3;
-		if(postings3!=null){
+		if(!postings3.isEmpty()){
 		testQuery3 = postings3.toString(); 
 		System.out.println("Keyword query "+ query3 +" result: " + testQuery3);
 		}else{
 			System.out.println("No result for: " + query3);
 		}
+
+		//4th query, ranked with BM25
+		String query4 = "oil prices opec";
+		if (qc.getDocumentLengths() != null) {
+			System.out.println("Ranked query " + query4 + " top 10: " + qc.performRankedQuery(query4, 10));
+		}
 	}
 
 	// This will perform the test queries that are online
@@ -186,30 +354,63 @@ public class Main {
 
 	/**
 	 * This runs the spimi algorithm (SPIMI-Invert) until all documents have
-	 * finished processing.
+	 * finished processing. The documents are inverted on one thread per core.
 	 * 
 	 * @param documents
 	 *            -- List of document indexes.
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 *             if an inverting thread failed
+	 * @throws IOException
+	 *             if the blocks could not be merged into the index
+	 */
+	public static void runSPIMIalgorithm(List<DocumentIndex> documents) throws InterruptedException, ExecutionException, IOException {
+		runSPIMIalgorithm(documents, new IndexingMetrics());
+	}
+
+	/**
+	 * Runs SPIMI-Invert and the merge like runSPIMIalgorithm(documents), the
+	 * blocks and the merge are counted in the metrics, which are registered
+	 * over JMX, printed and written to METRICS_FILE at the end.
+	 * 
+	 * @param documents
+	 * @param metrics
+	 *            the ones given to tokenizeAllDocuments, to have the whole run
+	 * @throws InterruptedException
+	 * @throws ExecutionException
+	 *             if an inverting thread failed
 	 * @throws IOException
-	 *             if there are problems with writing the blocks/dictionary to
-	 *             disk
+	 *             if the blocks could not be merged into the index
 	 */
-	public static void runSPIMIalgorithm(List<DocumentIndex> documents) throws IOException {
+	public static void runSPIMIalgorithm(List<DocumentIndex> documents, IndexingMetrics metrics) throws InterruptedException, ExecutionException, IOException {
+		metrics.register();
 
 		SPIMI spimi = new SPIMI(650000, 650000);
+		spimi.setPostingsCodec(PostingsCodecs.forName(System.getProperty(POSTINGS_CODEC_PROPERTY, PostingsCodecs.DEFAULT.getName())));
+		spimi.setMetrics(metrics);
 
 		// send in the documentindex stream(all tokens, we can access
-		// term(token) and docID(token)
-		Iterator<DocumentIndex> documentStream = documents.iterator();
-		spimi.setDocumentIndexStream(documentStream);
-
-		while (documentStream.hasNext()) {
-			spimi.SPIMIInvert();
-		}
+		// term(token) and docID(token), each thread inverts its own share of it
+		spimi.parallelSPIMIInvert(documents, Runtime.getRuntime().availableProcessors());
 
 		// This will write the dictionary to disk.
 		spimi.mergeAllBlocks();
+		reportIndexingMetrics(metrics);
 
 	};
 
+	/**
+	 * Prints the summary of the metrics and writes them all to METRICS_FILE.
+	 * 
+	 * @param metrics
+	 */
+	public static void reportIndexingMetrics(IndexingMetrics metrics) {
+		System.out.println(metrics);
+		try {
+			metrics.write(METRICS_FILE);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
 }
@@ -0,0 +1,62 @@
+package indexing;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Reads the bits written by BitOutput from a buffer, with absolute gets.
+ * Only the bytes holding the bits that are read are loaded, so getPosition() is the end of the sequence once it is read.
+ */
+class BitInput {
+
+	private final ByteBuffer in;
+	private int position;
+	private long buffer;
+	private int count;
+
+	BitInput(ByteBuffer in, int position) {
+		this.in = in;
+		this.position = position;
+	}
+
+	/**
+	 * @param bits number of bits, 0 to 32
+	 * @return the value of the bits
+	 */
+	int read(int bits) {
+		if(bits == 0){
+			return 0;
+		}
+		while(this.count < bits){
+			this.buffer |= (long) (this.in.get(this.position++) & 0xFF) << this.count;
+			this.count += 8;
+		}
+		int value = (int) (this.buffer & (-1L >>> (64 - bits)));
+		this.buffer >>>= bits;
+		this.count -= bits;
+		return value;
+	}
+
+	//the number of zeros before the next one, the one is read too
+	int readUnary() {
+		int zeros = 0;
+		while(true){
+			if(this.count == 0){
+				this.buffer = this.in.get(this.position++) & 0xFF;
+				this.count = 8;
+			}
+			if(this.buffer == 0){
+				zeros += this.count;
+				this.count = 0;
+				continue;
+			}
+			int trailing = Long.numberOfTrailingZeros(this.buffer);
+			this.buffer >>>= trailing + 1;
+			this.count -= trailing + 1;
+			return zeros + trailing;
+		}
+	}
+
+	int getPosition() {
+		return position;
+	}
+}
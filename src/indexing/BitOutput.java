@@ -0,0 +1,52 @@
+package indexing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes bits to a DataOutput, from the low bit of each byte to the high bit.
+ * The bits are kept in a long until a whole byte is ready, flush() pads the last byte with zeros.
+ */
+class BitOutput {
+
+	private final DataOutput out;
+	private long buffer;
+	private int count;
+
+	BitOutput(DataOutput out) {
+		this.out = out;
+	}
+
+	/**
+	 * @param bits number of bits, 0 to 32
+	 * @param value only its low bits are written
+	 */
+	void write(int bits, int value) throws IOException {
+		if(bits == 0){
+			return;
+		}
+		this.buffer |= (value & (-1L >>> (64 - bits))) << this.count;
+		this.count += bits;
+		while(this.count >= 8){
+			this.out.writeByte((int) this.buffer);
+			this.buffer >>>= 8;
+			this.count -= 8;
+		}
+	}
+
+	//zeros followed by a one
+	void writeUnary(int zeros) throws IOException {
+		for(; zeros >= 32; zeros -= 32){
+			this.write(32, 0);
+		}
+		this.write(zeros + 1, 1 << zeros);
+	}
+
+	void flush() throws IOException {
+		if(this.count > 0){
+			this.out.writeByte((int) this.buffer);
+			this.buffer = 0;
+			this.count = 0;
+		}
+	}
+}
@@ -0,0 +1,140 @@
+package indexing;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * The merge phase of SPIMI.
+ * All the block files are opened at once and read term by term. A priority queue keeps the
+ * blocks ordered by their current term, so every term is taken out of all the blocks that have it,
+ * its postings are merged in one n-way pass and written straight to the output file.
+ * A document found in several blocks gets one posting with the sum of its frequencies.
+ * Only one term per block is in memory at any time.
+ * The merged terms can also be written to a MappedIndexWriter, for the index the queries map.
+ */
+public class BlockMerger {
+
+	private int termCount;
+	private long tokenCount;
+	private long nonPositionalPostingsCount;
+
+	//the current term of a block, ordered by term and then by block so the merge is stable.
+	private static class BlockCursor implements Comparable<BlockCursor> {
+		private final BlockReader reader;
+		private final int blockIndex;
+
+		BlockCursor(BlockReader reader, int blockIndex) {
+			this.reader = reader;
+			this.blockIndex = blockIndex;
+		}
+
+		@Override
+		public int compareTo(BlockCursor other) {
+			int compare = this.reader.getTerm().compareTo(other.reader.getTerm());
+			return compare != 0 ? compare : Integer.compare(this.blockIndex, other.blockIndex);
+		}
+	}
+
+	public int getTermCount() {
+		return termCount;
+	}
+
+	public long getTokenCount() {
+		return tokenCount;
+	}
+
+	public long getNonPositionalPostingsCount() {
+		return nonPositionalPostingsCount;
+	}
+
+	/**
+	 * Merges the blocks into one sorted dictionary file.
+	 * @param blockFileNames the blocks, each one sorted by term with sorted postings.
+	 * @param outputFileName
+	 * @throws IOException
+	 */
+	public void merge(List<String> blockFileNames, String outputFileName) throws IOException {
+		this.merge(blockFileNames, outputFileName, null);
+	}
+
+	/**
+	 * Merges the blocks into one sorted dictionary file, and writes every merged term to the index writer too.
+	 * @param blockFileNames the blocks, each one sorted by term with sorted postings.
+	 * @param outputFileName
+	 * @param indexWriter the index for the queries, null to only write the dictionary file
+	 * @throws IOException
+	 */
+	public void merge(List<String> blockFileNames, String outputFileName, MappedIndexWriter indexWriter) throws IOException {
+		List<BlockReader> readers = new ArrayList<BlockReader>();
+		PriorityQueue<BlockCursor> queue = new PriorityQueue<BlockCursor>(Math.max(1, blockFileNames.size()));
+
+		try (BlockWriter writer = new BlockWriter(outputFileName)) {
+			for(int i = 0; i < blockFileNames.size(); i++){
+				BlockReader reader = new BlockReader(blockFileNames.get(i));
+				readers.add(reader);
+				if(reader.next()){
+					queue.add(new BlockCursor(reader, i));
+				}
+			}
+
+			BlockCursor[] matching = new BlockCursor[blockFileNames.size()];
+			int[][] lists = new int[blockFileNames.size()][];
+			int[][] frequencies = new int[blockFileNames.size()][];
+			int[] lengths = new int[blockFileNames.size()];
+			int[] merged = new int[1024];
+			int[] mergedFrequencies = new int[1024];
+			while(!queue.isEmpty()){
+				String term = queue.peek().reader.getTerm();
+
+				//taking the term out of every block that has it
+				int count = 0;
+				int length = 0;
+				while(!queue.isEmpty() && queue.peek().reader.getTerm().equals(term)){
+					BlockCursor cursor = queue.poll();
+					matching[count] = cursor;
+					lists[count] = cursor.reader.getPostings();
+					frequencies[count] = cursor.reader.getFrequencies();
+					lengths[count] = cursor.reader.getPostingsLength();
+					length += lengths[count];
+					count++;
+				}
+
+				if(length > merged.length){
+					merged = new int[Math.max(length, merged.length * 2)];
+					mergedFrequencies = new int[merged.length];
+				}
+				length = PostingsMerge.mergeAll(lists, frequencies, lengths, count, merged, mergedFrequencies);
+
+				//the postings buffers are reused by next(), so the blocks only move on after the merge
+				for(int i = 0; i < count; i++){
+					if(matching[i].reader.next()){
+						queue.add(matching[i]);
+					}
+				}
+
+				if(!term.isEmpty()){
+					writer.writeTerm(term, merged, mergedFrequencies, length);
+					if(indexWriter != null){
+						indexWriter.writeTerm(term, merged, mergedFrequencies, length);
+					}
+					this.countTerm(mergedFrequencies, length);
+				}
+			}
+		} finally {
+			for(BlockReader reader : readers){
+				reader.close();
+			}
+		}
+	}
+
+	//every posting is a document, the frequencies add up to the tokens
+	private void countTerm(int[] frequencies, int length){
+		this.termCount++;
+		this.nonPositionalPostingsCount += length;
+		for(int i = 0; i < length; i++){
+			this.tokenCount += frequencies[i];
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package indexing;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming reader for the files written by BlockWriter.
+ * Only the current term and its postings are kept in memory, call next() to move to the next term.
+ */
+public class BlockReader implements Closeable {
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private DataInputStream in;
+	private int termCount;
+	private long postingsCount;
+	private int termsRead;
+
+	private String term;
+	private byte[] termBuffer = new byte[64];
+	private int[] postings = new int[64];
+	private int[] frequencies = new int[64];
+	private int postingsLength;
+
+	public BlockReader(String fileName) throws IOException {
+		this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE));
+
+		if(this.in.readInt() != BlockWriter.MAGIC){
+			this.in.close();
+			throw new IOException(fileName + " is not a block file");
+		}
+		int version = this.in.readInt();
+		if(version != BlockWriter.VERSION){
+			this.in.close();
+			throw new IOException(fileName + " has unsupported version " + version);
+		}
+		this.termCount = this.in.readInt();
+		this.postingsCount = this.in.readLong();
+	}
+
+	public int getTermCount() {
+		return termCount;
+	}
+
+	public long getPostingsCount() {
+		return postingsCount;
+	}
+
+	/**
+	 * Reads the next term and its postings.
+	 * @return false when all the terms have been read.
+	 * @throws IOException
+	 */
+	public boolean next() throws IOException {
+		if(this.termsRead == this.termCount){
+			this.term = null;
+			this.postingsLength = 0;
+			return false;
+		}
+
+		int termLength = VariableByte.readVInt(this.in);
+		if(termLength > this.termBuffer.length){
+			this.termBuffer = new byte[Math.max(termLength, this.termBuffer.length * 2)];
+		}
+		this.in.readFully(this.termBuffer, 0, termLength);
+		this.term = new String(this.termBuffer, 0, termLength, StandardCharsets.UTF_8);
+
+		int length = VariableByte.readVInt(this.in);
+		if(length > this.postings.length){
+			this.postings = new int[Math.max(length, this.postings.length * 2)];
+			this.frequencies = new int[this.postings.length];
+		}
+		int docID = 0;
+		for(int i = 0; i < length; i++){
+			//the low bit of the gap is set when the frequency is 1 and not written
+			int code = VariableByte.readVInt(this.in);
+			docID += code >>> 1;
+			this.postings[i] = docID;
+			this.frequencies[i] = (code & 1) != 0 ? 1 : VariableByte.readVInt(this.in);
+		}
+		this.postingsLength = length;
+
+		this.termsRead++;
+		return true;
+	}
+
+	/**
+	 * @return the current term, null before the first call to next() or after the last term.
+	 */
+	public String getTerm() {
+		return term;
+	}
+
+	/**
+	 * The buffer is reused by next(), copy it if it has to be kept.
+	 * @return the doc IDs of the current term, only the first getPostingsLength() are valid.
+	 */
+	public int[] getPostings() {
+		return postings;
+	}
+
+	/**
+	 * The buffer is reused by next(), copy it if it has to be kept.
+	 * @return the term frequencies of the current term, in the order of the doc IDs.
+	 */
+	public int[] getFrequencies() {
+		return frequencies;
+	}
+
+	public int getPostingsLength() {
+		return postingsLength;
+	}
+
+	/**
+	 * @return a copy of the current postings.
+	 */
+	public PostingsList getPostingsList() {
+		PostingsList postingsList = new PostingsList(this.postingsLength);
+		for(int i = 0; i < this.postingsLength; i++){
+			postingsList.add(this.postings[i], this.frequencies[i]);
+		}
+		return postingsList;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.in.close();
+	}
+}
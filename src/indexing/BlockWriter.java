@@ -0,0 +1,120 @@
+package indexing;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming writer for the binary block and dictionary files.
+ *
+ * File layout:
+ * header   : magic (int), version (int), number of terms (int), number of postings (long)
+ * each term: term length in bytes (vbyte), term in utf-8, postings count (vbyte),
+ *            then for each posting (doc ID gap << 1 | 1 if the frequency is 1) (vbyte),
+ *            followed by the term frequency (vbyte) only when it is more than 1
+ *
+ * Terms have to be written in sorted order and each postings list has to be sorted with distinct doc IDs,
+ * the first doc ID is written as is and every other one as the gap from the previous one.
+ * Most terms appear once in a document, the low bit of the gap saves writing their frequency.
+ * Version 1 files had one doc ID per occurrence of the term and no frequencies.
+ * The header counts are only known at the end so they are patched in when the writer is closed.
+ */
+public class BlockWriter implements Closeable {
+
+	public static final int MAGIC = 0x53504D49; // "SPMI"
+	public static final int VERSION = 2;
+	public static final int HEADER_SIZE = 4 + 4 + 4 + 8;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private FileOutputStream fileStream;
+	private DataOutputStream out;
+	private int termCount;
+	private long postingsCount;
+
+	public BlockWriter(String fileName) throws IOException {
+		this.fileStream = new FileOutputStream(fileName);
+		this.out = new DataOutputStream(new BufferedOutputStream(this.fileStream, BUFFER_SIZE));
+		//placeholder header, the real one is written on close
+		this.writeHeader();
+	}
+
+	public int getTermCount() {
+		return termCount;
+	}
+
+	public long getPostingsCount() {
+		return postingsCount;
+	}
+
+	/**
+	 * Writes a term and its sorted postings list.
+	 * @param term
+	 * @param docIDs sorted distinct doc IDs
+	 * @param frequencies the term frequency in each document
+	 * @param length number of postings to take from the arrays
+	 * @throws IOException
+	 */
+	public void writeTerm(String term, int[] docIDs, int[] frequencies, int length) throws IOException {
+		byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+		VariableByte.writeVInt(this.out, termBytes.length);
+		this.out.write(termBytes);
+
+		VariableByte.writeVInt(this.out, length);
+		int previous = 0;
+		for(int i = 0; i < length; i++){
+			int gap = docIDs[i] - previous;
+			if(frequencies[i] == 1){
+				VariableByte.writeVInt(this.out, gap << 1 | 1);
+			}else{
+				VariableByte.writeVInt(this.out, gap << 1);
+				VariableByte.writeVInt(this.out, frequencies[i]);
+			}
+			previous = docIDs[i];
+		}
+
+		this.termCount++;
+		this.postingsCount += length;
+	}
+
+	/**
+	 * Writes a term and its sorted postings list.
+	 * @param term
+	 * @param postingsList sorted postings
+	 * @throws IOException
+	 */
+	public void writeTerm(String term, PostingsList postingsList) throws IOException {
+		this.writeTerm(term, postingsList.getDocIDs(), postingsList.getFrequencies(), postingsList.size());
+	}
+
+	private void writeHeader() throws IOException {
+		this.out.writeInt(MAGIC);
+		this.out.writeInt(VERSION);
+		this.out.writeInt(this.termCount);
+		this.out.writeLong(this.postingsCount);
+	}
+
+	/**
+	 * Flushes the terms and writes the final header at the start of the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			this.out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(this.termCount).putLong(this.postingsCount);
+			header.flip();
+			long position = 0;
+			while(header.hasRemaining()){
+				position += this.fileStream.getChannel().write(header, position);
+			}
+		} finally {
+			this.out.close();
+		}
+	}
+}
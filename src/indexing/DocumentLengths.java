@@ -0,0 +1,179 @@
+package indexing;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Number of indexed terms of every document, with the collection statistics used to rank the results:
+ * the number of documents and their average length.
+ * SPIMI-Invert adds the documents from several threads, so add() is synchronized.
+ *
+ * File layout:
+ * header       : magic (int), version (int), number of documents (int), total length (long)
+ * each document: doc ID gap (vbyte), length (vbyte), sorted by doc ID
+ */
+public class DocumentLengths {
+
+	public static final int MAGIC = 0x53504D44; // "SPMD"
+	public static final int VERSION = 1;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private int[] docIDs = new int[1024];
+	private int[] lengths = new int[1024];
+	private int size;
+	private long totalLength;
+	private boolean sorted = true;
+
+	/**
+	 * Adds a document, a doc ID that is already there gets the length added to its own.
+	 * @param docID
+	 * @param length number of terms indexed for the document
+	 */
+	public synchronized void add(int docID, int length) {
+		if(this.size == this.docIDs.length){
+			this.docIDs = Arrays.copyOf(this.docIDs, this.size * 2);
+			this.lengths = Arrays.copyOf(this.lengths, this.size * 2);
+		}
+		if(this.size > 0 && docID <= this.docIDs[this.size - 1]){
+			this.sorted = false;
+		}
+		this.docIDs[this.size] = docID;
+		this.lengths[this.size] = length;
+		this.size++;
+		this.totalLength += length;
+	}
+
+	/**
+	 * @return the number of documents.
+	 */
+	public synchronized int size() {
+		this.sort();
+		return size;
+	}
+
+	public synchronized long getTotalLength() {
+		return totalLength;
+	}
+
+	/**
+	 * @return the average number of terms of a document, 0 if there are no documents.
+	 */
+	public synchronized double getAverageLength() {
+		this.sort();
+		return this.size == 0 ? 0 : (double) this.totalLength / this.size;
+	}
+
+	/**
+	 * @return the biggest doc ID, -1 if there are no documents.
+	 */
+	public synchronized int getMaxDocID() {
+		this.sort();
+		return this.size == 0 ? -1 : this.docIDs[this.size - 1];
+	}
+
+	/**
+	 * @param docID
+	 * @return the length of the document, 0 if it is not there.
+	 */
+	public synchronized int getLength(int docID) {
+		this.sort();
+		int position = Arrays.binarySearch(this.docIDs, 0, this.size, docID);
+		return position >= 0 ? this.lengths[position] : 0;
+	}
+
+	/**
+	 * Doc IDs are small and dense (the NEWIDs of the collection), so the lengths can be looked up by index.
+	 * @return the length of every document indexed by doc ID, 0 for the doc IDs that are not used.
+	 */
+	public synchronized int[] toArrayByDocID() {
+		this.sort();
+		int[] byDocID = new int[this.size == 0 ? 0 : this.docIDs[this.size - 1] + 1];
+		for(int i = 0; i < this.size; i++){
+			byDocID[this.docIDs[i]] = this.lengths[i];
+		}
+		return byDocID;
+	}
+
+	//documents are sorted by doc ID, a document added twice gets one entry with the sum of its lengths
+	private void sort() {
+		if(this.sorted){
+			return;
+		}
+
+		long[] pairs = new long[this.size];
+		for(int i = 0; i < this.size; i++){
+			pairs[i] = ((long) this.docIDs[i] << 32) | this.lengths[i];
+		}
+		Arrays.sort(pairs);
+
+		int length = 0;
+		for(long pair : pairs){
+			int docID = (int) (pair >>> 32);
+			if(length > 0 && this.docIDs[length - 1] == docID){
+				this.lengths[length - 1] += (int) pair;
+			}else{
+				this.docIDs[length] = docID;
+				this.lengths[length] = (int) pair;
+				length++;
+			}
+		}
+		this.size = length;
+		this.sorted = true;
+	}
+
+	/**
+	 * Writes the document lengths to a file.
+	 * @param fileName
+	 * @throws IOException
+	 */
+	public synchronized void write(String fileName) throws IOException {
+		this.sort();
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(fileName), BUFFER_SIZE))) {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(this.size);
+			out.writeLong(this.totalLength);
+			int previous = 0;
+			for(int i = 0; i < this.size; i++){
+				VariableByte.writeVInt(out, this.docIDs[i] - previous);
+				VariableByte.writeVInt(out, this.lengths[i]);
+				previous = this.docIDs[i];
+			}
+		}
+	}
+
+	/**
+	 * Reads the document lengths written by write().
+	 * @param fileName
+	 * @return the document lengths
+	 * @throws IOException if the file is missing or is not a document lengths file
+	 */
+	public static DocumentLengths read(String fileName) throws IOException {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(fileName), BUFFER_SIZE))) {
+			if(in.readInt() != MAGIC){
+				throw new IOException(fileName + " is not a document lengths file");
+			}
+			int version = in.readInt();
+			if(version != VERSION){
+				throw new IOException(fileName + " has unsupported version " + version);
+			}
+			int size = in.readInt();
+			in.readLong();
+
+			DocumentLengths documentLengths = new DocumentLengths();
+			int docID = 0;
+			for(int i = 0; i < size; i++){
+				docID += VariableByte.readVInt(in);
+				documentLengths.add(docID, VariableByte.readVInt(in));
+			}
+			return documentLengths;
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package indexing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Elias delta codec. A value v is written as x = v + 1: n = floor(log2(x)), n + 1 in gamma, then the n low bits of x.
+ * The length is shorter than in gamma for the big gaps of the rare terms, and a bit longer for the small ones.
+ */
+public class EliasDeltaCodec extends PostingsCodec {
+
+	public static final int ID = 2;
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return "delta";
+	}
+
+	@Override
+	public void encode(int[] values, int length, DataOutput out) throws IOException {
+		BitOutput bits = new BitOutput(out);
+		for(int i = 0; i < length; i++){
+			long x = values[i] + 1L;
+			int n = 63 - Long.numberOfLeadingZeros(x);
+			EliasGammaCodec.writeGamma(bits, n + 1);
+			bits.write(n, (int) x);
+		}
+		bits.flush();
+	}
+
+	@Override
+	public int decode(ByteBuffer in, int position, int[] values, int length) {
+		BitInput bits = new BitInput(in, position);
+		for(int i = 0; i < length; i++){
+			int n = (int) EliasGammaCodec.readGamma(bits) - 1;
+			values[i] = (int) (((1L << n) | (bits.read(n) & 0xFFFFFFFFL)) - 1);
+		}
+		return bits.getPosition();
+	}
+}
@@ -0,0 +1,55 @@
+package indexing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Elias gamma codec. A value v is written as x = v + 1, since gamma can not encode 0:
+ * n = floor(log2(x)) in unary (n zeros and a one), then the n low bits of x.
+ * Gaps of 1 take a single bit, which suits the postings of the common terms.
+ */
+public class EliasGammaCodec extends PostingsCodec {
+
+	public static final int ID = 1;
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return "gamma";
+	}
+
+	@Override
+	public void encode(int[] values, int length, DataOutput out) throws IOException {
+		BitOutput bits = new BitOutput(out);
+		for(int i = 0; i < length; i++){
+			writeGamma(bits, values[i] + 1L);
+		}
+		bits.flush();
+	}
+
+	@Override
+	public int decode(ByteBuffer in, int position, int[] values, int length) {
+		BitInput bits = new BitInput(in, position);
+		for(int i = 0; i < length; i++){
+			values[i] = (int) (readGamma(bits) - 1);
+		}
+		return bits.getPosition();
+	}
+
+	//x >= 1, up to 2^32
+	static void writeGamma(BitOutput bits, long x) throws IOException {
+		int n = 63 - Long.numberOfLeadingZeros(x);
+		bits.writeUnary(n);
+		bits.write(n, (int) x);
+	}
+
+	static long readGamma(BitInput bits) {
+		int n = bits.readUnary();
+		return (1L << n) | (bits.read(n) & 0xFFFFFFFFL);
+	}
+}
@@ -0,0 +1,292 @@
+package indexing;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Counters of every phase of the indexing: the time of each file tokenized, the documents and tokens
+ * inverted per second, the blocks written with their bytes and flush times, the bytes read and written
+ * by the merge and the biggest block dictionary. The tokenizer and SPIMI threads update them at the same time,
+ * they are all atomic. register() publishes them over JMX while the indexer runs,
+ * and toJson() is the summary written next to the index at the end of the merge.
+ */
+public class IndexingMetrics implements IndexingMetricsMXBean {
+
+	public static final String OBJECT_NAME = "indexing:type=IndexingMetrics";
+
+	private final AtomicInteger filesTokenized = new AtomicInteger();
+	private final AtomicLong documentsTokenized = new AtomicLong();
+	private final Map<String, Long> fileTokenizeNanos = new ConcurrentHashMap<String, Long>();
+	private final AtomicLong maxFileTokenizeNanos = new AtomicLong();
+	private final AtomicLong tokenizeStart = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong tokenizeEnd = new AtomicLong(Long.MIN_VALUE);
+
+	private final AtomicLong documentsInverted = new AtomicLong();
+	private final AtomicLong tokensInverted = new AtomicLong();
+	private final AtomicInteger peakDictionaryTerms = new AtomicInteger();
+	private final AtomicLong peakDictionaryBytes = new AtomicLong();
+	private final AtomicLong invertStart = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong invertEnd = new AtomicLong(Long.MIN_VALUE);
+
+	private final AtomicInteger blocksWritten = new AtomicInteger();
+	private final AtomicLong blockBytesWritten = new AtomicLong();
+	private final AtomicLong flushNanos = new AtomicLong();
+	private final AtomicLong maxFlushNanos = new AtomicLong();
+
+	private final AtomicLong mergeBytesRead = new AtomicLong();
+	private final AtomicLong mergeBytesWritten = new AtomicLong();
+	private final AtomicLong mergeNanos = new AtomicLong();
+
+	/**
+	 * A file was tokenized.
+	 * @param fileName
+	 * @param documents number of documents in the file
+	 * @param startNanos System.nanoTime() before reading the file
+	 * @param endNanos System.nanoTime() once its documents are tokenized
+	 */
+	public void fileTokenized(String fileName, int documents, long startNanos, long endNanos) {
+		long nanos = endNanos - startNanos;
+		this.filesTokenized.incrementAndGet();
+		this.documentsTokenized.addAndGet(documents);
+		this.fileTokenizeNanos.put(fileName, nanos);
+		this.maxFileTokenizeNanos.accumulateAndGet(nanos, Math::max);
+		this.tokenizeStart.accumulateAndGet(startNanos, Math::min);
+		this.tokenizeEnd.accumulateAndGet(endNanos, Math::max);
+	}
+
+	/**
+	 * SPIMI-Invert filled a block, before it is written.
+	 * @param documents number of documents in the block
+	 * @param tokens number of terms of these documents
+	 * @param terms number of distinct terms in the block dictionary
+	 * @param memoryBytes estimated heap size of the block dictionary
+	 * @param startNanos System.nanoTime() when the block was started
+	 */
+	public void blockInverted(int documents, long tokens, int terms, long memoryBytes, long startNanos) {
+		this.documentsInverted.addAndGet(documents);
+		this.tokensInverted.addAndGet(tokens);
+		this.peakDictionaryTerms.accumulateAndGet(terms, Math::max);
+		this.peakDictionaryBytes.accumulateAndGet(memoryBytes, Math::max);
+		this.invertStart.accumulateAndGet(startNanos, Math::min);
+	}
+
+	/**
+	 * A block was sorted and written to disk.
+	 * @param bytes size of the block file
+	 * @param startNanos System.nanoTime() before sorting the block
+	 * @param endNanos System.nanoTime() once the file is closed
+	 */
+	public void blockWritten(long bytes, long startNanos, long endNanos) {
+		long nanos = endNanos - startNanos;
+		this.blocksWritten.incrementAndGet();
+		this.blockBytesWritten.addAndGet(bytes);
+		this.flushNanos.addAndGet(nanos);
+		this.maxFlushNanos.accumulateAndGet(nanos, Math::max);
+		this.invertEnd.accumulateAndGet(endNanos, Math::max);
+	}
+
+	/**
+	 * The blocks were merged.
+	 * @param bytesRead size of all the blocks
+	 * @param bytesWritten size of the dictionary and index files
+	 * @param nanos time of the merge
+	 */
+	public void merged(long bytesRead, long bytesWritten, long nanos) {
+		this.mergeBytesRead.addAndGet(bytesRead);
+		this.mergeBytesWritten.addAndGet(bytesWritten);
+		this.mergeNanos.addAndGet(nanos);
+	}
+
+	/**
+	 * Publishes the metrics on the platform MBean server, in place of the ones registered before.
+	 */
+	public void register() {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName(OBJECT_NAME);
+			if(server.isRegistered(name)){
+				server.unregisterMBean(name);
+			}
+			server.registerMBean(this, name);
+		} catch (JMException e) {
+			e.printStackTrace();
+		}
+	}
+
+	@Override
+	public int getFilesTokenized() {
+		return filesTokenized.get();
+	}
+
+	@Override
+	public long getDocumentsTokenized() {
+		return documentsTokenized.get();
+	}
+
+	@Override
+	public long getTokenizeMillis() {
+		return millis(this.tokenizeStart, this.tokenizeEnd);
+	}
+
+	@Override
+	public long getMaxFileTokenizeMillis() {
+		return maxFileTokenizeNanos.get() / 1000000;
+	}
+
+	@Override
+	public Map<String, Long> getFileTokenizeMillis() {
+		Map<String, Long> millis = new TreeMap<String, Long>();
+		for(Map.Entry<String, Long> file : this.fileTokenizeNanos.entrySet()){
+			millis.put(file.getKey(), file.getValue() / 1000000);
+		}
+		return millis;
+	}
+
+	@Override
+	public long getDocumentsInverted() {
+		return documentsInverted.get();
+	}
+
+	@Override
+	public long getTokensInverted() {
+		return tokensInverted.get();
+	}
+
+	@Override
+	public long getInvertMillis() {
+		return millis(this.invertStart, this.invertEnd);
+	}
+
+	@Override
+	public double getDocumentsPerSecond() {
+		return perSecond(this.documentsInverted.get(), this.invertStart, this.invertEnd);
+	}
+
+	@Override
+	public double getTokensPerSecond() {
+		return perSecond(this.tokensInverted.get(), this.invertStart, this.invertEnd);
+	}
+
+	@Override
+	public int getPeakDictionaryTerms() {
+		return peakDictionaryTerms.get();
+	}
+
+	@Override
+	public long getPeakDictionaryBytes() {
+		return peakDictionaryBytes.get();
+	}
+
+	@Override
+	public int getBlocksWritten() {
+		return blocksWritten.get();
+	}
+
+	@Override
+	public long getBlockBytesWritten() {
+		return blockBytesWritten.get();
+	}
+
+	@Override
+	public long getFlushMillis() {
+		return flushNanos.get() / 1000000;
+	}
+
+	@Override
+	public long getMaxFlushMillis() {
+		return maxFlushNanos.get() / 1000000;
+	}
+
+	@Override
+	public long getMergeBytesRead() {
+		return mergeBytesRead.get();
+	}
+
+	@Override
+	public long getMergeBytesWritten() {
+		return mergeBytesWritten.get();
+	}
+
+	@Override
+	public long getMergeMillis() {
+		return mergeNanos.get() / 1000000;
+	}
+
+	//from the first start to the last end of a phase, 0 if it did not run
+	private static long millis(AtomicLong start, AtomicLong end) {
+		return Math.max(0, end.get() - start.get()) / 1000000;
+	}
+
+	private static double perSecond(long count, AtomicLong start, AtomicLong end) {
+		long nanos = end.get() - start.get();
+		return nanos > 0 ? count * 1e9 / nanos : 0;
+	}
+
+	/**
+	 * @return the metrics as a JSON object, the per file times in an object keyed by file name
+	 */
+	public String toJson() {
+		StringBuilder json = new StringBuilder("{\n");
+		json.append("  \"filesTokenized\": ").append(this.getFilesTokenized()).append(",\n");
+		json.append("  \"documentsTokenized\": ").append(this.getDocumentsTokenized()).append(",\n");
+		json.append("  \"tokenizeMillis\": ").append(this.getTokenizeMillis()).append(",\n");
+		json.append("  \"maxFileTokenizeMillis\": ").append(this.getMaxFileTokenizeMillis()).append(",\n");
+		json.append("  \"fileTokenizeMillis\": {");
+		String separator = "\n";
+		for(Map.Entry<String, Long> file : this.getFileTokenizeMillis().entrySet()){
+			json.append(separator).append("    \"").append(escape(file.getKey())).append("\": ").append(file.getValue());
+			separator = ",\n";
+		}
+		json.append(separator.equals("\n") ? "},\n" : "\n  },\n");
+		json.append("  \"documentsInverted\": ").append(this.getDocumentsInverted()).append(",\n");
+		json.append("  \"tokensInverted\": ").append(this.getTokensInverted()).append(",\n");
+		json.append("  \"invertMillis\": ").append(this.getInvertMillis()).append(",\n");
+		json.append("  \"documentsPerSecond\": ").append(String.format(Locale.ROOT, "%.1f", this.getDocumentsPerSecond())).append(",\n");
+		json.append("  \"tokensPerSecond\": ").append(String.format(Locale.ROOT, "%.1f", this.getTokensPerSecond())).append(",\n");
+		json.append("  \"peakDictionaryTerms\": ").append(this.getPeakDictionaryTerms()).append(",\n");
+		json.append("  \"peakDictionaryBytes\": ").append(this.getPeakDictionaryBytes()).append(",\n");
+		json.append("  \"blocksWritten\": ").append(this.getBlocksWritten()).append(",\n");
+		json.append("  \"blockBytesWritten\": ").append(this.getBlockBytesWritten()).append(",\n");
+		json.append("  \"flushMillis\": ").append(this.getFlushMillis()).append(",\n");
+		json.append("  \"maxFlushMillis\": ").append(this.getMaxFlushMillis()).append(",\n");
+		json.append("  \"mergeBytesRead\": ").append(this.getMergeBytesRead()).append(",\n");
+		json.append("  \"mergeBytesWritten\": ").append(this.getMergeBytesWritten()).append(",\n");
+		json.append("  \"mergeMillis\": ").append(this.getMergeMillis()).append("\n");
+		json.append("}\n");
+		return json.toString();
+	}
+
+	//the file names are the only strings, a Windows path has backslashes
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * Writes the JSON summary.
+	 * @param fileName
+	 * @throws IOException
+	 */
+	public void write(String fileName) throws IOException {
+		Files.write(Paths.get(fileName), this.toJson().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public String toString() {
+		return String.format(Locale.ROOT, "%d documents, %d tokens inverted in %d ms (%.0f docs/s, %.0f tokens/s), %d blocks (%d bytes, %d ms flushing), merge %d ms (%d bytes read, %d written)",
+				this.getDocumentsInverted(), this.getTokensInverted(), this.getInvertMillis(), this.getDocumentsPerSecond(), this.getTokensPerSecond(),
+				this.getBlocksWritten(), this.getBlockBytesWritten(), this.getFlushMillis(), this.getMergeMillis(), this.getMergeBytesRead(), this.getMergeBytesWritten());
+	}
+}
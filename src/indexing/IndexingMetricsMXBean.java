@@ -0,0 +1,37 @@
+package indexing;
+
+import java.util.Map;
+
+/**
+ * The metrics of the indexing run, as JMX attributes under IndexingMetrics.OBJECT_NAME.
+ * The times are in milliseconds, the phases are timed from the first file or block to the last one.
+ */
+public interface IndexingMetricsMXBean {
+
+	//tokenizing
+	int getFilesTokenized();
+	long getDocumentsTokenized();
+	long getTokenizeMillis();
+	long getMaxFileTokenizeMillis();
+	Map<String, Long> getFileTokenizeMillis();
+
+	//SPIMI-Invert
+	long getDocumentsInverted();
+	long getTokensInverted();
+	long getInvertMillis();
+	double getDocumentsPerSecond();
+	double getTokensPerSecond();
+	int getPeakDictionaryTerms();
+	long getPeakDictionaryBytes();
+
+	//blocks
+	int getBlocksWritten();
+	long getBlockBytesWritten();
+	long getFlushMillis();
+	long getMaxFlushMillis();
+
+	//merge
+	long getMergeBytesRead();
+	long getMergeBytesWritten();
+	long getMergeMillis();
+}
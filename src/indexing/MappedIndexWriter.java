@@ -0,0 +1,137 @@
+package indexing;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Writes the index the queries memory map: a terms file with the front coded term dictionary
+ * (see TermDictionaryWriter), and a postings file.
+ * The terms come from the merge, one at a time, so only the block index of the dictionary is kept in memory.
+ *
+ * Postings file layout:
+ * header   : magic (int), version (int), id of the postings codec (int)
+ * each term: its postings encoded by the codec (see PostingsCodec),
+ *            then for the lists of SkipPolicy.SKIP_THRESHOLD postings or more, the skip pointers:
+ *            every skipInterval-th doc ID (about sqrt(n) of them) as variable byte gaps
+ * then the postings of all the documents, with their number of distinct terms as frequency, and their skip pointers
+ * The number of postings of a term is its document frequency, in the term dictionary,
+ * the number of skip pointers follows from it (see SkipPolicy).
+ */
+public class MappedIndexWriter implements Closeable {
+
+	public static final int POSTINGS_MAGIC = 0x53504D50; // "SPMP"
+	public static final int VERSION = 3;
+	public static final int POSTINGS_HEADER_SIZE = 4 + 4 + 4;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private TermDictionaryWriter terms;
+	private DataOutputStream postings;
+	private long postingsPosition;
+	private final PostingsCodec codec;
+
+	//number of distinct terms of every document, by doc ID
+	private int[] termCounts = new int[1024];
+
+	public MappedIndexWriter(String termsFileName, String postingsFileName) throws IOException {
+		this(termsFileName, postingsFileName, PostingsCodecs.DEFAULT);
+	}
+
+	/**
+	 * @param termsFileName
+	 * @param postingsFileName
+	 * @param codec the compression of the postings
+	 * @throws IOException
+	 */
+	public MappedIndexWriter(String termsFileName, String postingsFileName, PostingsCodec codec) throws IOException {
+		this.codec = codec;
+		this.terms = new TermDictionaryWriter(termsFileName);
+		this.postings = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(postingsFileName), BUFFER_SIZE));
+
+		this.postings.writeInt(POSTINGS_MAGIC);
+		this.postings.writeInt(VERSION);
+		this.postings.writeInt(codec.getId());
+		this.postingsPosition = POSTINGS_HEADER_SIZE;
+	}
+
+	public int getTermCount() {
+		return this.terms.getTermCount();
+	}
+
+	public PostingsCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Writes a term and its sorted postings list, the terms have to come in sorted order.
+	 * @param term
+	 * @param docIDs sorted distinct doc IDs
+	 * @param frequencies the term frequency in each document
+	 * @param length number of postings to take from the arrays
+	 * @throws IOException
+	 */
+	public void writeTerm(String term, int[] docIDs, int[] frequencies, int length) throws IOException {
+		this.terms.add(term, length, this.postingsPosition);
+		this.writePostings(docIDs, frequencies, length);
+
+		for(int i = 0; i < length; i++){
+			if(docIDs[i] >= this.termCounts.length){
+				this.termCounts = Arrays.copyOf(this.termCounts, Math.max(docIDs[i] + 1, this.termCounts.length * 2));
+			}
+			this.termCounts[docIDs[i]]++;
+		}
+	}
+
+	//without the count, it is the document frequency of the dictionary
+	private void writePostings(int[] docIDs, int[] frequencies, int length) throws IOException {
+		int start = this.postings.size();
+		this.codec.encodePostings(docIDs, frequencies, length, this.postings);
+
+		//the skip pointers do not depend on the codec, the queries read them without decoding the postings again
+		int skipInterval = SkipPolicy.skipInterval(length);
+		int previous = 0;
+		for(int i = 0; skipInterval > 0 && i < length; i += skipInterval){
+			VariableByte.writeVInt(this.postings, docIDs[i] - previous);
+			previous = docIDs[i];
+		}
+		this.postingsPosition += this.postings.size() - start;
+	}
+
+	/**
+	 * Writes the postings of all the documents and closes the term dictionary.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			int documentCount = 0;
+			for(int count : this.termCounts){
+				if(count > 0){
+					documentCount++;
+				}
+			}
+			int[] docIDs = new int[documentCount];
+			int[] counts = new int[documentCount];
+			int position = 0;
+			for(int docID = 0; docID < this.termCounts.length; docID++){
+				if(this.termCounts[docID] > 0){
+					docIDs[position] = docID;
+					counts[position] = this.termCounts[docID];
+					position++;
+				}
+			}
+			long allDocumentsOffset = this.postingsPosition;
+			this.writePostings(docIDs, counts, documentCount);
+			this.terms.setAllDocuments(documentCount, allDocumentsOffset);
+		} finally {
+			try {
+				this.terms.close();
+			} finally {
+				this.postings.close();
+			}
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package indexing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Patched frame of reference codec (PForDelta) on blocks of BLOCK_SIZE values.
+ * Every value of a block is packed with the same number of bits b, chosen so the block takes the fewest bytes:
+ * the few values that do not fit in b bits are exceptions, their low b bits are packed with the others
+ * and their high bits are patched in afterwards. The values are read back by unpacking the whole block at once,
+ * which is what makes the decoding fast.
+ *
+ * Block layout: b (byte), number of exceptions (byte), the values packed in b bits,
+ * then for each exception its position in the block (byte) and its high bits (vbyte).
+ */
+public class PForDeltaCodec extends PostingsCodec {
+
+	public static final int ID = 5;
+	public static final int BLOCK_SIZE = 128;
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return "pfordelta";
+	}
+
+	@Override
+	public void encode(int[] values, int length, DataOutput out) throws IOException {
+		for(int start = 0; start < length; start += BLOCK_SIZE){
+			int count = Math.min(BLOCK_SIZE, length - start);
+			int bits = bestBitWidth(values, start, count);
+
+			int exceptions = 0;
+			for(int i = 0; i < count; i++){
+				if(values[start + i] >>> bits != 0){
+					exceptions++;
+				}
+			}
+			out.writeByte(bits);
+			out.writeByte(exceptions);
+
+			BitOutput packed = new BitOutput(out);
+			for(int i = 0; i < count; i++){
+				packed.write(bits, values[start + i]);
+			}
+			packed.flush();
+
+			for(int i = 0; i < count; i++){
+				int high = values[start + i] >>> bits;
+				if(high != 0){
+					out.writeByte(i);
+					VariableByte.writeVInt(out, high);
+				}
+			}
+		}
+	}
+
+	//the width with the smallest block, the packed values and the exceptions. The values are not negative, 31 bits always fit
+	private static int bestBitWidth(int[] values, int start, int count) {
+		int bestBits = 31;
+		long bestSize = Long.MAX_VALUE;
+		for(int bits = 0; bits <= 31; bits++){
+			long size = ((long) count * bits + 7) / 8;
+			for(int i = 0; i < count && size < bestSize; i++){
+				int high = values[start + i] >>> bits;
+				if(high != 0){
+					size += 1 + variableByteLength(high);
+				}
+			}
+			if(size < bestSize){
+				bestSize = size;
+				bestBits = bits;
+			}
+		}
+		return bestBits;
+	}
+
+	private static int variableByteLength(int value) {
+		int length = 1;
+		while((value & ~0x7F) != 0){
+			value >>>= 7;
+			length++;
+		}
+		return length;
+	}
+
+	@Override
+	public int decode(ByteBuffer in, int position, int[] values, int length) {
+		for(int start = 0; start < length; start += BLOCK_SIZE){
+			int count = Math.min(BLOCK_SIZE, length - start);
+			int bits = in.get(position++);
+			int exceptions = in.get(position++) & 0xFF;
+
+			//unpacking the block, the bits of the last byte that are left are its padding
+			int mask = bits == 0 ? 0 : -1 >>> (32 - bits);
+			long buffer = 0;
+			int available = 0;
+			for(int i = 0; i < count; i++){
+				while(available < bits){
+					buffer |= (long) (in.get(position++) & 0xFF) << available;
+					available += 8;
+				}
+				values[start + i] = (int) buffer & mask;
+				buffer >>>= bits;
+				available -= bits;
+			}
+
+			for(int e = 0; e < exceptions; e++){
+				int index = in.get(position++) & 0xFF;
+				int high = 0;
+				for(int shift = 0; ; shift += 7){
+					byte b = in.get(position++);
+					high |= (b & 0x7F) << shift;
+					if(b >= 0){
+						break;
+					}
+				}
+				values[start + index] |= high << bits;
+			}
+		}
+		return position;
+	}
+}
@@ -0,0 +1,98 @@
+package indexing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compression of the postings of the mapped index.
+ * A codec encodes sequences of non negative ints. A postings list is written as two of them:
+ * the doc ID gaps (the first doc ID as is), then the term frequencies minus 1, which are mostly 0.
+ * The codec of an index is chosen when it is built and written in the header of the postings file,
+ * see PostingsCodecs for the codecs and their ids.
+ *
+ * The codecs have no state, one instance is shared by all the threads.
+ */
+public abstract class PostingsCodec {
+
+	/**
+	 * @return the id written in the postings file, it must never change for a codec.
+	 */
+	public abstract int getId();
+
+	/**
+	 * @return the name of the codec, to choose it when the index is built.
+	 */
+	public abstract String getName();
+
+	/**
+	 * Encodes the values, the encoded sequence ends on a byte boundary.
+	 * @param values non negative ints
+	 * @param length number of values to take from the array
+	 * @param out
+	 * @throws IOException
+	 */
+	public abstract void encode(int[] values, int length, DataOutput out) throws IOException;
+
+	/**
+	 * Decodes values written by encode(), the number of values is not written so it has to be known.
+	 * @param in the encoded bytes, only read with absolute gets
+	 * @param position where the values start
+	 * @param values filled with the values
+	 * @param length number of values to decode
+	 * @return the position after the last byte of the values.
+	 */
+	public abstract int decode(ByteBuffer in, int position, int[] values, int length);
+
+	/**
+	 * Encodes a postings list, its doc ID gaps followed by its frequencies.
+	 * @param docIDs sorted distinct doc IDs
+	 * @param frequencies the term frequency in each document, at least 1
+	 * @param length number of postings to take from the arrays
+	 * @param out
+	 * @throws IOException
+	 */
+	public void encodePostings(int[] docIDs, int[] frequencies, int length, DataOutput out) throws IOException {
+		int[] values = new int[length];
+		int previous = 0;
+		for(int i = 0; i < length; i++){
+			values[i] = docIDs[i] - previous;
+			previous = docIDs[i];
+		}
+		this.encode(values, length, out);
+
+		for(int i = 0; i < length; i++){
+			values[i] = frequencies[i] - 1;
+		}
+		this.encode(values, length, out);
+	}
+
+	/**
+	 * Decodes a postings list written by encodePostings().
+	 * @param in the encoded bytes, only read with absolute gets
+	 * @param position where the postings start
+	 * @param docIDs filled with the doc IDs
+	 * @param frequencies filled with the term frequencies
+	 * @param length number of postings, the document frequency of the term
+	 * @return the position after the last byte of the postings.
+	 */
+	public int decodePostings(ByteBuffer in, int position, int[] docIDs, int[] frequencies, int length) {
+		position = this.decode(in, position, docIDs, length);
+		int docID = 0;
+		for(int i = 0; i < length; i++){
+			docID += docIDs[i];
+			docIDs[i] = docID;
+		}
+
+		position = this.decode(in, position, frequencies, length);
+		for(int i = 0; i < length; i++){
+			frequencies[i]++;
+		}
+		return position;
+	}
+
+	@Override
+	public String toString() {
+		return this.getName();
+	}
+}
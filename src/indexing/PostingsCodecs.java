@@ -0,0 +1,56 @@
+package indexing;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The postings codecs, by id (written in the postings file) and by name (to choose one when the index is built).
+ */
+public class PostingsCodecs {
+
+	public static final PostingsCodec VARIABLE_BYTE = new VariableByteCodec();
+	public static final PostingsCodec ELIAS_GAMMA = new EliasGammaCodec();
+	public static final PostingsCodec ELIAS_DELTA = new EliasDeltaCodec();
+	public static final PostingsCodec SIMPLE_9 = new Simple9Codec();
+	public static final PostingsCodec SIMPLE_16 = new Simple16Codec();
+	public static final PostingsCodec PFOR_DELTA = new PForDeltaCodec();
+
+	public static final PostingsCodec DEFAULT = VARIABLE_BYTE;
+
+	//in the order of their ids
+	private static final List<PostingsCodec> CODECS = Collections.unmodifiableList(Arrays.asList(
+			VARIABLE_BYTE, ELIAS_GAMMA, ELIAS_DELTA, SIMPLE_9, SIMPLE_16, PFOR_DELTA));
+
+	private PostingsCodecs(){
+	}
+
+	/**
+	 * @return every codec, in the order of their ids.
+	 */
+	public static List<PostingsCodec> all() {
+		return CODECS;
+	}
+
+	/**
+	 * @param id written in a postings file
+	 * @return the codec, null if there is none with this id.
+	 */
+	public static PostingsCodec forId(int id) {
+		return id >= 0 && id < CODECS.size() ? CODECS.get(id) : null;
+	}
+
+	/**
+	 * @param name vbyte, gamma, delta, simple9, simple16 or pfordelta
+	 * @return the codec
+	 * @throws IllegalArgumentException if there is no codec with this name
+	 */
+	public static PostingsCodec forName(String name) {
+		for(PostingsCodec codec : CODECS){
+			if(codec.getName().equalsIgnoreCase(name)){
+				return codec;
+			}
+		}
+		throw new IllegalArgumentException("unknown postings codec " + name + ", the codecs are " + CODECS);
+	}
+}
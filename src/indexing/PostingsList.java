@@ -0,0 +1,175 @@
+package indexing;
+
+import java.util.Arrays;
+
+/**
+ * Growable postings list of (doc ID, term frequency) pairs in two primitive arrays.
+ * SPIMI-Invert adds a doc ID for every occurrence of a term, the consecutive occurrences in a document
+ * are collapsed in one posting whose frequency is counted up, so a list holds each document once.
+ * The arrays are doubled when they are full, so there is no boxing and no object per posting.
+ */
+public class PostingsList {
+
+	private static final int INITIAL_CAPACITY = 4;
+
+	//estimated heap size of a new list: the object (header, array references, size, sorted flag) and its two int arrays
+	public static final int EMPTY_LIST_BYTES = 24 + 2 * (16 + INITIAL_CAPACITY * 4);
+
+	private int[] docIDs;
+	private int[] frequencies;
+	private int size;
+	private boolean sorted = true;
+
+	public PostingsList() {
+		this(INITIAL_CAPACITY);
+	}
+
+	/**
+	 * @param capacity number of postings the list holds before it grows
+	 */
+	public PostingsList(int capacity) {
+		this.docIDs = new int[Math.max(1, capacity)];
+		this.frequencies = new int[this.docIDs.length];
+	}
+
+	/**
+	 * Adds an occurrence of the term in a document. If the document is the last one of the list
+	 * its frequency is incremented, else a new posting is added at the end.
+	 * @param docID
+	 * @return the number of bytes the list grew by, 0 unless the arrays were doubled.
+	 */
+	public int add(int docID) {
+		return this.add(docID, 1);
+	}
+
+	/**
+	 * Adds a posting, or adds the frequency to the last posting if it has the same doc ID.
+	 * @param docID
+	 * @param frequency number of occurrences of the term in the document
+	 * @return the number of bytes the list grew by, 0 unless the arrays were doubled.
+	 */
+	public int add(int docID, int frequency) {
+		if(this.size > 0 && this.docIDs[this.size - 1] == docID){
+			this.frequencies[this.size - 1] += frequency;
+			return 0;
+		}
+
+		int grownBytes = 0;
+		if(this.size == this.docIDs.length){
+			grownBytes = this.size * 8;
+			this.docIDs = Arrays.copyOf(this.docIDs, this.size * 2);
+			this.frequencies = Arrays.copyOf(this.frequencies, this.size * 2);
+		}
+		if(this.size > 0 && docID < this.docIDs[this.size - 1]){
+			this.sorted = false;
+		}
+		this.docIDs[this.size] = docID;
+		this.frequencies[this.size] = frequency;
+		this.size++;
+		return grownBytes;
+	}
+
+	public int get(int index) {
+		return this.docIDs[index];
+	}
+
+	public int getFrequency(int index) {
+		return this.frequencies[index];
+	}
+
+	/**
+	 * @return the number of documents in the list.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the number of occurrences of the term, the sum of the frequencies.
+	 */
+	public long totalFrequency() {
+		long total = 0;
+		for(int i = 0; i < this.size; i++){
+			total += this.frequencies[i];
+		}
+		return total;
+	}
+
+	/**
+	 * The array is shared with the list, only the first size() doc IDs are valid.
+	 * @return the doc IDs
+	 */
+	public int[] getDocIDs() {
+		return docIDs;
+	}
+
+	/**
+	 * The array is shared with the list, only the first size() frequencies are valid.
+	 * @return the term frequencies, in the order of the doc IDs
+	 */
+	public int[] getFrequencies() {
+		return frequencies;
+	}
+
+	/**
+	 * @return a copy of the doc IDs, trimmed to the size of the list.
+	 */
+	public int[] toArray() {
+		return Arrays.copyOf(this.docIDs, this.size);
+	}
+
+	/**
+	 * @return a copy of the frequencies, trimmed to the size of the list.
+	 */
+	public int[] frequenciesToArray() {
+		return Arrays.copyOf(this.frequencies, this.size);
+	}
+
+	/**
+	 * Sorts the postings by doc ID, documents usually come in order so this is mostly a no-op.
+	 * Postings of the same document are merged and their frequencies added.
+	 */
+	public void sort() {
+		if(this.sorted){
+			return;
+		}
+
+		//doc IDs are positive, so the pairs sort by doc ID when the doc ID is the high half
+		long[] pairs = new long[this.size];
+		for(int i = 0; i < this.size; i++){
+			pairs[i] = ((long) this.docIDs[i] << 32) | this.frequencies[i];
+		}
+		Arrays.sort(pairs);
+
+		int length = 0;
+		for(long pair : pairs){
+			int docID = (int) (pair >>> 32);
+			int frequency = (int) pair;
+			if(length > 0 && this.docIDs[length - 1] == docID){
+				this.frequencies[length - 1] += frequency;
+			}else{
+				this.docIDs[length] = docID;
+				this.frequencies[length] = frequency;
+				length++;
+			}
+		}
+		this.size = length;
+		this.sorted = true;
+	}
+
+	/**
+	 * @return the postings as [docID:frequency, ...]
+	 */
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append('[');
+		for(int i = 0; i < this.size; i++){
+			if(i > 0){
+				builder.append(", ");
+			}
+			builder.append(this.docIDs[i]).append(':').append(this.frequencies[i]);
+		}
+		return builder.append(']').toString();
+	}
+}
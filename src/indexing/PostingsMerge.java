@@ -0,0 +1,204 @@
+package indexing;
+
+/**
+ * Merging of sorted postings lists kept in int arrays.
+ * The inputs are only read through cursors, they are never changed, and nothing is allocated per posting.
+ * Duplicates are kept, so the merge of [1, 2] and [2, 3] is [1, 2, 2, 3].
+ * The merge of (doc ID, frequency) postings adds the frequencies of a doc ID instead.
+ */
+public class PostingsMerge {
+
+	private PostingsMerge(){
+	}
+
+	/**
+	 * Merges two sorted lists with a linear scan.
+	 * @param list0 sorted doc IDs
+	 * @param length0 number of doc IDs used in list0
+	 * @param list1 sorted doc IDs
+	 * @param length1 number of doc IDs used in list1
+	 * @param result receives the merged list, needs room for length0 + length1 doc IDs
+	 * @return the length of the merged list.
+	 */
+	public static int merge(int[] list0, int length0, int[] list1, int length1, int[] result){
+		int i = 0;
+		int j = 0;
+		int k = 0;
+
+		while(i < length0 && j < length1){
+			if(list0[i] < list1[j]){
+				result[k++] = list0[i++];
+			}else{
+				result[k++] = list1[j++];
+			}
+		}
+
+		if(i < length0){
+			System.arraycopy(list0, i, result, k, length0 - i);
+			k += length0 - i;
+		}else if(j < length1){
+			System.arraycopy(list1, j, result, k, length1 - j);
+			k += length1 - j;
+		}
+
+		return k;
+	}
+
+	/**
+	 * Merges two sorted lists.
+	 * @param list0
+	 * @param list1
+	 * @return a new array with the merged list.
+	 */
+	public static int[] merge(int[] list0, int[] list1){
+		int[] result = new int[list0.length + list1.length];
+		merge(list0, list0.length, list1, list1.length, result);
+		return result;
+	}
+
+	/**
+	 * Merges n sorted lists in one pass. A binary heap of the list indexes, ordered by the
+	 * doc ID under each list's cursor, picks the next doc ID, so the cost is O(N log n).
+	 * @param lists the sorted lists
+	 * @param lengths number of doc IDs used in each list
+	 * @param count number of lists to merge
+	 * @param result receives the merged list, needs room for the sum of the lengths
+	 * @return the length of the merged list.
+	 */
+	public static int mergeAll(int[][] lists, int[] lengths, int count, int[] result){
+		if(count == 0){
+			return 0;
+		}
+		if(count == 1){
+			System.arraycopy(lists[0], 0, result, 0, lengths[0]);
+			return lengths[0];
+		}
+		if(count == 2){
+			return merge(lists[0], lengths[0], lists[1], lengths[1], result);
+		}
+
+		int[] cursors = new int[count];
+		int[] heap = new int[count];
+		int heapSize = 0;
+		for(int i = 0; i < count; i++){
+			if(lengths[i] > 0){
+				heap[heapSize++] = i;
+			}
+		}
+		for(int i = heapSize / 2 - 1; i >= 0; i--){
+			siftDown(heap, heapSize, i, lists, cursors);
+		}
+
+		int k = 0;
+		while(heapSize > 0){
+			int list = heap[0];
+			result[k++] = lists[list][cursors[list]++];
+
+			if(cursors[list] == lengths[list]){
+				heap[0] = heap[--heapSize];
+			}
+			if(heapSize > 0){
+				siftDown(heap, heapSize, 0, lists, cursors);
+			}
+		}
+
+		return k;
+	}
+
+	/**
+	 * Merges n sorted lists.
+	 * @param lists
+	 * @return a new array with the merged list.
+	 */
+	public static int[] mergeAll(int[]... lists){
+		int[] lengths = new int[lists.length];
+		int total = 0;
+		for(int i = 0; i < lists.length; i++){
+			lengths[i] = lists[i].length;
+			total += lengths[i];
+		}
+		int[] result = new int[total];
+		mergeAll(lists, lengths, lists.length, result);
+		return result;
+	}
+
+	/**
+	 * Merges n sorted lists of (doc ID, frequency) postings in one pass, like mergeAll(int[][], int[], int, int[]).
+	 * A doc ID found in several lists is written once, with the sum of its frequencies.
+	 * @param docIDs the sorted doc IDs of each list
+	 * @param frequencies the frequencies of each list
+	 * @param lengths number of postings used in each list
+	 * @param count number of lists to merge
+	 * @param resultDocIDs receives the merged doc IDs, needs room for the sum of the lengths
+	 * @param resultFrequencies receives the merged frequencies, needs room for the sum of the lengths
+	 * @return the length of the merged list.
+	 */
+	public static int mergeAll(int[][] docIDs, int[][] frequencies, int[] lengths, int count, int[] resultDocIDs, int[] resultFrequencies){
+		if(count == 1){
+			System.arraycopy(docIDs[0], 0, resultDocIDs, 0, lengths[0]);
+			System.arraycopy(frequencies[0], 0, resultFrequencies, 0, lengths[0]);
+			return lengths[0];
+		}
+
+		int[] cursors = new int[count];
+		int[] heap = new int[count];
+		int heapSize = 0;
+		for(int i = 0; i < count; i++){
+			if(lengths[i] > 0){
+				heap[heapSize++] = i;
+			}
+		}
+		for(int i = heapSize / 2 - 1; i >= 0; i--){
+			siftDown(heap, heapSize, i, docIDs, cursors);
+		}
+
+		int k = 0;
+		while(heapSize > 0){
+			int list = heap[0];
+			int docID = docIDs[list][cursors[list]];
+			int frequency = frequencies[list][cursors[list]++];
+			if(k > 0 && resultDocIDs[k - 1] == docID){
+				resultFrequencies[k - 1] += frequency;
+			}else{
+				resultDocIDs[k] = docID;
+				resultFrequencies[k] = frequency;
+				k++;
+			}
+
+			if(cursors[list] == lengths[list]){
+				heap[0] = heap[--heapSize];
+			}
+			if(heapSize > 0){
+				siftDown(heap, heapSize, 0, docIDs, cursors);
+			}
+		}
+
+		return k;
+	}
+
+	private static void siftDown(int[] heap, int heapSize, int position, int[][] lists, int[] cursors){
+		int list = heap[position];
+		int value = lists[list][cursors[list]];
+
+		while(true){
+			int child = 2 * position + 1;
+			if(child >= heapSize){
+				break;
+			}
+			int childValue = lists[heap[child]][cursors[heap[child]]];
+			if(child + 1 < heapSize){
+				int rightValue = lists[heap[child + 1]][cursors[heap[child + 1]]];
+				if(rightValue < childValue){
+					child++;
+					childValue = rightValue;
+				}
+			}
+			if(value <= childValue){
+				break;
+			}
+			heap[position] = heap[child];
+			position = child;
+		}
+		heap[position] = list;
+	}
+}
@@ -1,33 +1,64 @@
 package indexing;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import java.util.List;
 
 import tokenizer.DocumentIndex;
+import tokenizer.DocumentQueue;
+import tokenizer.StopWords;
 
 
 public class SPIMI {
 		
+	public static final String DICTIONARY_FILE = "dictionary.bin";
+	public static final String TEXT_DICTIONARY_FILE = "dictionary.txt";
+	public static final String DOCUMENT_LENGTHS_FILE = "doclengths.bin";
+	//the index the queries memory map
+	public static final String TERMS_FILE = "terms.bin";
+	public static final String POSTINGS_FILE = "postings.bin";
+	
+	//String object and the header of its byte array
+	private static final int STRING_BYTES = 24 + 16;
+	//HashMap node and its slot in the table
+	private static final int MAP_ENTRY_BYTES = 32 + 8;
 
 	private int blockSize;
 	private int memorySize;
-	private int blockNumber;
+	private final AtomicInteger blockNumber = new AtomicInteger();
 	private Iterator<DocumentIndex> documentIndexStream;
-	private Map<String,List<Integer>> dictionary;
+	private Map<String,PostingsList> dictionary;
+	private boolean textExport;
+	//the totals of the merged dictionary are printed after the merge
+	private boolean printCounts = true;
+	//compression of the postings of the mapped index
+	private PostingsCodec postingsCodec = PostingsCodecs.DEFAULT;
+	//number of terms of every document, for the ranking
+	private final DocumentLengths documentLengths = new DocumentLengths();
+	//timings and sizes of the blocks and of the merge
+	private IndexingMetrics metrics = new IndexingMetrics();
+	//where the blocks and the index are written, the working directory by default
+	private Path directory = Paths.get("");
 	
 	
-	private List<Integer> blockPostingsList;
+	private PostingsList blockPostingsList;
 	
 	
 	public SPIMI(int blockSize, int memorySize){
@@ -47,28 +78,28 @@ public class SPIMI {
 
 
 	public int getBlockNumber() {
-		return blockNumber;
+		return blockNumber.get();
 	}
 
 
 	public void setBlockNumber(int blockNumber) {
-		this.blockNumber = blockNumber;
+		this.blockNumber.set(blockNumber);
 	}
 	
 	
 	//here create a new postings list and add the docID to it.
-	public List<Integer> addToDictionary(Map<String,List<Integer>> dictionary,String term){
-		List<Integer> postingsList = new ArrayList<Integer>();
+	public PostingsList addToDictionary(Map<String,PostingsList> dictionary,String term){
+		PostingsList postingsList = new PostingsList();
 		dictionary.put(term,postingsList);
 		return postingsList;
 	}
 	
-	public List<Integer> getPostingsList(Map<String,List<Integer>> dictionary, String term){
+	public PostingsList getPostingsList(Map<String,PostingsList> dictionary, String term){
 		return dictionary.get(term);
 	}
 
 	
-	//for max memory in spimi invert
+	//for max memory in spimi invert, in bytes
 	public void setMemorySize(int memSize){
 		this.memorySize = memSize;
 	}
@@ -77,7 +108,7 @@ public class SPIMI {
 		return this.memorySize;
 	}
 	
-	//for max block memory in spimi invert
+	//for max number of postings in a block, 0 for no limit
 	public void setBlockSize(int blockSize){
 		this.blockSize = blockSize;
 	}
@@ -86,132 +117,263 @@ public class SPIMI {
 		return this.blockSize;
 	}
 	
-	public Map<String, List<Integer>> getDictionary() {
+	//also write the merged dictionary in the old text format
+	public void setTextExport(boolean textExport){
+		this.textExport = textExport;
+	}
+	
+	public boolean isTextExport(){
+		return this.textExport;
+	}
+	
+	//print the number of terms, postings, tokens and documents after the merge, for the compression table
+	public void setPrintCounts(boolean printCounts){
+		this.printCounts = printCounts;
+	}
+	
+	public boolean isPrintCounts(){
+		return this.printCounts;
+	}
+	
+	//the codec of the postings file, see PostingsCodecs
+	public void setPostingsCodec(PostingsCodec postingsCodec){
+		this.postingsCodec = postingsCodec;
+	}
+	
+	public PostingsCodec getPostingsCodec(){
+		return this.postingsCodec;
+	}
+	
+	/**
+	 * setter for the metrics the blocks and the merge are counted in, to share them with the tokenizers
+	 * @param metrics
+	 */
+	public void setMetrics(IndexingMetrics metrics){
+		this.metrics = metrics;
+	}
+
+	public IndexingMetrics getMetrics(){
+		return this.metrics;
+	}
+
+	/**
+	 * setter for the directory the blocks, the dictionary and the index files are written in
+	 * @param directory
+	 */
+	public void setDirectory(Path directory){
+		this.directory = directory;
+	}
+
+	public Path getDirectory(){
+		return this.directory;
+	}
+
+	//the path of a block or index file in the directory of this instance
+	private String file(String fileName){
+		return this.directory.resolve(fileName).toString();
+	}
+
+	public Map<String, PostingsList> getDictionary() {
 		return dictionary;
 	}
 
-	public void setDictionary(Map<String, List<Integer>> dictionary) {
+	public void setDictionary(Map<String, PostingsList> dictionary) {
 		this.dictionary = dictionary;
 	}
 
+	public DocumentLengths getDocumentLengths() {
+		return documentLengths;
+	}
+
 	/**
-	 * Spimi invert algorithm implementation
+	 * Spimi invert algorithm implementation, reading from the document stream of this instance.
+	 * @throws UncheckedIOException if the block could not be written
 	 */
 	public void SPIMIInvert(){
+		SPIMIInvert(this.documentIndexStream);
+	}
+
+	/**
+	 * Spimi invert algorithm implementation
+	 * The memory used by the block is counted by the inverter itself (terms, postings and map entries),
+	 * the block is written to disk once it reaches memorySize bytes or blockSize postings.
+	 * Only the block number is shared, so several threads can invert their own streams at the same time.
+	 * @param documentStream the documents to invert, only the ones that fit in the block are taken
+	 * @throws UncheckedIOException if the block could not be written
+	 */
+	public void SPIMIInvert(Iterator<DocumentIndex> documentStream){
 		
-		//Setting the initial memory
-		int initialMemory = (int) java.lang.Runtime.getRuntime().freeMemory();
-		int usedMemory = 0;
+		//Memory and postings used by this block
+		long usedMemory = 0;
+		long postingsCount = 0;
+		int documentCount = 0;
+		long start = System.nanoTime();
 		
-		Map<String, List<Integer>> dictionary = new LinkedHashMap<String, List<Integer>>();
+		Map<String, PostingsList> dictionary = new HashMap<String, PostingsList>();
 
 		//Checking with the memory limitation and with the document stream.
-		while(usedMemory<this.memorySize && this.documentIndexStream.hasNext()){
+		while(usedMemory<this.memorySize && (this.blockSize<=0 || postingsCount<this.blockSize) && documentStream.hasNext()){
 
-			//Setting the current memory for the memory limitation
-			int currentMemory = (int) java.lang.Runtime.getRuntime().freeMemory();
-			usedMemory = initialMemory - currentMemory;
-			
-			//Getting the terms and docID of each document
-			DocumentIndex docIndex = this.documentIndexStream.next();
+			//Getting the terms and docID of each document, the docID is parsed once per document
+			DocumentIndex docIndex = documentStream.next();
 				String[] terms = docIndex.getTerms();
-				String docID = docIndex.getDocID();
+				int docID = Integer.parseInt(docIndex.getDocID());
 	
 				//Looping through all the terms
 				for (int i = 0; i < terms.length; i++) {
 					
-					// note that our postings list is a list of integers.
-					//our postings list variable
-					List<Integer> postingsList;
-
 					//Getting the current term
 					String term = terms[i];
 					
 					//If we did not add the term, we create a new postings list and link it to our variable,else we just add it to the entry.
-					if (dictionary.get(term) == null) {
+					PostingsList postingsList = dictionary.get(term);
+					if (postingsList == null) {
 						postingsList = this.addToDictionary(dictionary, term); 
-					} else {
-						postingsList = dictionary.get(term);
+						usedMemory += termMemory(term);
 					}
 					
-					//instead of doubling the size when full, we use arrayList's implemented size increasing alogrithm
-					//adding the posting to the list.
-					postingsList.add(Integer.parseInt(docID));
+					//the occurrences in the same document only count up the frequency of its posting,
+					//the postings list doubles its arrays when it is full
+					usedMemory += postingsList.add(docID);
 				}
+				postingsCount += terms.length;
+				documentCount++;
+				this.documentLengths.add(docID, terms.length);
 	
 	
 				
 		}	
 		
 		//We now sort and write the block to disk.
+		this.metrics.blockInverted(documentCount, postingsCount, dictionary.size(), usedMemory, start);
 		sortAndWriteBlockToFile(dictionary);
 
 	}
 
-	//merge all the blocks using a linear scam
-	public void mergeAllBlocks(){
-	
-		//creating a new dictionary
-		this.dictionary = new LinkedHashMap<String,List<Integer>>();
-		
-		//Looping through all our written blocks
-		for(int i = 1;i<this.blockNumber;i++){
-			
-			//Getting the current block
-			Map<String,List<Integer>> blockDictionary = this.readBlockAndConvertToDictionary("block"+i+".txt");
-			
-			//for debug
-			//System.out.println("block dictionary size : " + blockDictionary.size());
+	/**
+	 * Runs SPIMI-Invert on several threads. The documents are split in one contiguous share per worker,
+	 * and each worker writes its own blocks until its share is done. Each worker has its own memorySize budget.
+	 * @param documents
+	 * @param workers number of threads
+	 * @throws InterruptedException
+	 * @throws ExecutionException if a worker failed, with the UncheckedIOException of a block that could not be written
+	 */
+	public void parallelSPIMIInvert(List<DocumentIndex> documents, int workers) throws InterruptedException, ExecutionException {
+		workers = Math.max(1, Math.min(workers, documents.size()));
+		int shareSize = (documents.size() + workers - 1) / workers;
 
-			//Creating the new mergedblocks (dictionary) variable
-			Map<String,List<Integer>> mergedBlocks = new LinkedHashMap<String,List<Integer>>();
-			
-			//Merging the terms of the two hashmaps together so we can do the linear scan.
-			List<String> mergedSortedTerms = mergeBlocks(this.dictionary,blockDictionary);
-			
-			//Linear scan. O(n)
-			for(String term : mergedSortedTerms){
-				
-				//If we have both terms, we merge the two postings list.
-				if(this.dictionary.get(term)!=null && blockDictionary.get(term)!=null){
-					//merge the two posting lists and add the term to the new merged list
-					 mergedBlocks.put(term,mergeOrdered(this.dictionary.get(term),blockDictionary.get(term)));
-				}else if(this.dictionary.get(term)!=null){
-					//Merge the new term.
-					mergedBlocks.put(term,this.dictionary.get(term));
-				}else{
-					//Merge the new term.
-					mergedBlocks.put(term,blockDictionary.get(term));
-				}
+		List<Iterator<DocumentIndex>> shares = new ArrayList<Iterator<DocumentIndex>>();
+		for(int start = 0; start < documents.size(); start += shareSize){
+			shares.add(documents.subList(start, Math.min(start + shareSize, documents.size())).iterator());
+		}
+		invertStreams(shares);
+	}
+
+	/**
+	 * Runs SPIMI-Invert on several threads while the documents are still being tokenized.
+	 * Every worker takes documents from the queue as they arrive, until the producers are done.
+	 * @param queue
+	 * @param workers number of threads
+	 * @throws InterruptedException
+	 * @throws ExecutionException if a worker failed, with the UncheckedIOException of a block that could not be written
+	 */
+	public void parallelSPIMIInvert(DocumentQueue queue, int workers) throws InterruptedException, ExecutionException {
+		List<Iterator<DocumentIndex>> streams = new ArrayList<Iterator<DocumentIndex>>();
+		for(int i = 0; i < Math.max(1, workers); i++){
+			streams.add(queue.iterator());
+		}
+		invertStreams(streams);
+	}
 
+	//one worker per stream, each one writes blocks until its stream is done
+	private void invertStreams(List<Iterator<DocumentIndex>> streams) throws InterruptedException, ExecutionException {
+		if(streams.isEmpty()){
+			return;
+		}
+		ExecutorService es = Executors.newFixedThreadPool(streams.size());
+		try {
+			List<Future<?>> tasks = new ArrayList<Future<?>>();
+			for(Iterator<DocumentIndex> stream : streams){
+				tasks.add(es.submit(() -> {
+					while(stream.hasNext()){
+						SPIMIInvert(stream);
+					}
+				}));
 			}
-			
-			//Dictionary conists of the merged blocks.
-			this.dictionary = mergedBlocks;
+			//waiting for every worker, a failure is thrown here
+			for(Future<?> task : tasks){
+				task.get();
+			}
+		} finally {
+			es.shutdownNow();
+		}
+	}
+
+	/**
+	 * Estimated heap size of a new term in the block dictionary:
+	 * the String and its byte array, the map entry, and an empty postings list.
+	 * @param term
+	 * @return the size in bytes
+	 */
+	private static long termMemory(String term){
+		return STRING_BYTES + term.length() + MAP_ENTRY_BYTES + PostingsList.EMPTY_LIST_BYTES;
+	}
+
+	/**
+	 * Merges all the blocks at once with a k-way merge and writes the dictionary to disk.
+	 * The merged dictionary is streamed to the file, it is never held in memory.
+	 * The lengths of the documents inverted by this instance are written next to it,
+	 * with the terms and postings files the queries memory map. The merge is counted in the metrics.
+	 * @throws IOException if a block could not be read or the index could not be written
+	 */
+	public void mergeAllBlocks() throws IOException {
+	
+		List<String> blockFileNames = new ArrayList<String>();
+		for(int i = 1;i<=this.blockNumber.get();i++){
+			blockFileNames.add(file(blockFileName(i)));
+		}
+		
+		long bytesRead = 0;
+		for(String blockFileName : blockFileNames){
+			bytesRead += fileSize(blockFileName);
+		}
+		long start = System.nanoTime();
 
+		BlockMerger merger = new BlockMerger();
+		try (MappedIndexWriter indexWriter = new MappedIndexWriter(file(TERMS_FILE), file(POSTINGS_FILE), this.postingsCodec)) {
+			merger.merge(blockFileNames, file(DICTIONARY_FILE), indexWriter);
+			this.documentLengths.write(file(DOCUMENT_LENGTHS_FILE));
 		}
+		long nanos = System.nanoTime() - start;
+		long bytesWritten = fileSize(file(DICTIONARY_FILE)) + fileSize(file(DOCUMENT_LENGTHS_FILE)) + fileSize(file(TERMS_FILE)) + fileSize(file(POSTINGS_FILE));
+		this.metrics.merged(bytesRead, bytesWritten, nanos);
 
-		//WRite the dictionary to file.
-		this.writeDictionary(this.dictionary);
+		if(this.textExport){
+			exportDictionaryAsText(file(DICTIONARY_FILE), file(TEXT_DICTIONARY_FILE));
+		}
 
 		//For compiling dictionary compression techniques table
-		count(this.dictionary);
-		//countstopwordsremoval(this.dictionary,30);
-		//countstopwordsremoval(this.dictionary,150);
+		if(this.printCounts){
+			System.out.println("Number of terms : " + merger.getTermCount());
+			System.out.println("Number of non pos postings : " + merger.getNonPositionalPostingsCount());
+			System.out.println("Number of tokens : " + merger.getTokenCount());
+			System.out.println("Number of documents : " + this.documentLengths.size());
+		}
+		//countstopwordsremoval(readBlockAndConvertToDictionary(DICTIONARY_FILE),StopWords.STOPWORDS_30);
+		//countstopwordsremoval(readBlockAndConvertToDictionary(DICTIONARY_FILE),StopWords.STOPWORDS_150);
 
 	}
 	
-	public static void count(Map<String,List<Integer>> mergedDict){
-		int tokens = 0;
+	public static void count(Map<String,PostingsList> mergedDict){
+		long tokens = 0;
 		int nonpositionalpostings = 0;
 			Set<String> keys = mergedDict.keySet();
 		
 		for(String term : keys){
-				tokens += mergedDict.get(term).size();
+				tokens += mergedDict.get(term).totalFrequency();
 				
-				
-				Set<Integer> nonpospostingslist = new LinkedHashSet<Integer>(mergedDict.get(term)); // to compile table at the end
-				nonpositionalpostings += nonpospostingslist.size();
+				//one posting per document, to compile table at the end
+				nonpositionalpostings += mergedDict.get(term).size();
 		}
 		
 	
@@ -221,160 +383,73 @@ public class SPIMI {
 		System.out.println("Number of tokens : " + tokens);
 	}
 	
-	public static void countstopwordsremoval(Map<String,List<Integer>> mergedDict,int numberOfStopWords){
-		int tokens = 0;
+	public static void countstopwordsremoval(Map<String,PostingsList> mergedDict,int numberOfStopWords){
+		countstopwordsremoval(mergedDict, StopWords.first(numberOfStopWords));
+	}
+	
+	public static void countstopwordsremoval(Map<String,PostingsList> mergedDict,StopWords stopWords){
+		long tokens = 0;
 		int nonpositionalpostings = 0;
 		int sizeOfDict = 0;
 		
 		Set<String> keys = mergedDict.keySet();
 		
 		for(String term : keys){
-			if(!isAStopWord(numberOfStopWords,term)){
+			if(!stopWords.contains(term)){
 				sizeOfDict++;
-				tokens += mergedDict.get(term).size();
-				
+				tokens += mergedDict.get(term).totalFrequency();
 				
-				Set<Integer> nonpospostingslist = new LinkedHashSet<Integer>(mergedDict.get(term)); // to compile table at the end
-				nonpositionalpostings += nonpospostingslist.size();
+				//one posting per document, to compile table at the end
+				nonpositionalpostings += mergedDict.get(term).size();
 			}
 		}
 
-		System.out.println("Number of terms with " + numberOfStopWords +" stopwords : " + sizeOfDict);
-		System.out.println("Number of non pos postings with " + numberOfStopWords +" stopwords : " + nonpositionalpostings);
-		System.out.println("Number of tokens with " + numberOfStopWords +" stopwords : " + tokens);
+		System.out.println("Number of terms with " + stopWords.size() +" stopwords : " + sizeOfDict);
+		System.out.println("Number of non pos postings with " + stopWords.size() +" stopwords : " + nonpositionalpostings);
+		System.out.println("Number of tokens with " + stopWords.size() +" stopwords : " + tokens);
 
 		
 	}
 	
 	public static boolean isAStopWord(int numberOfStopWords,String term){
-		String[] stopwords = { "a", "about", "above", "after", "again", "against", "all", "am", "an", "and", "any",
-				"are", "aren't", "as", "at", "be", "because", "been", "before", "being", "below", "between", "both",
-				"but", "by", "can't", "cannot", "could", "couldn't", "did", "didn't", "do", "does", "doesn't", "doing",
-				"don't", "down", "during", "each", "few", "for", "from", "further", "had", "hadn't", "has", "hasn't",
-				"have", "haven't", "having", "he", "he'd", "he'll", "he's", "her", "here", "here's", "hers", "herself",
-				"him", "himself", "his", "how", "how's", "i", "i'd", "i'll", "i'm", "i've", "if", "in", "into", "is",
-				"isn't", "it", "it's", "its", "itself", "let's", "me", "more", "most", "mustn't", "my", "myself", "no",
-				"nor", "not", "of", "off", "on", "once", "only", "or", "other", "ought", "our", "ours", "ourselves",
-				"out", "over", "own", "same", "shan't", "she", "she'd", "she'll", "she's", "should", "shouldn't", "so",
-				"some", "such", "than", "that", "that's", "the", "their", "theirs", "them", "themselves", "then",
-				"there", "there's", "these", "they", "they'd", "they'll", "they're", "they've", "this", "those",
-				"through", "to", "too", "under", "until", "up", "very", "was", "wasn't", "we", "we'd", "we'll", "we're",
-				"we've", "were", "weren't", "what", "what's", "when", "when's", "where", "where's", "which", "while",
-				"who", "who's", "whom", "why", "why's", "with", "won't", "would", "wouldn't", "you", "you'd", "you'll",
-				"you're", "you've", "your", "yours", "yourself", "yourselves" };
-		
-		if(numberOfStopWords>=stopwords.length) numberOfStopWords = stopwords.length;
-		for(int i = 0; i<=numberOfStopWords;i++){
-			if(term.equals(stopwords[i])){
-				return true;
-			}
-		}
-		
-		return false;
+		return StopWords.first(numberOfStopWords).contains(term);
 	}
 
 	/**
-	 * to get the merged terms together so we can achieve our linear scan to merge the blocks
-	 * @param map1
-	 * @param map2
-	 * @return the merged list of terms.
-	 */
-	public static List<String> mergeBlocks(Map<String,List<Integer>> map1,Map<String,List<Integer>> map2){
-		//when putting the set, merge the postings
-		Set<String> keys1 = map1.keySet();
-		Set<String> keys2 = map2.keySet();		
-		
-		 // Get list iterators and fetch first value from each, if available
-	    Iterator<String> iter1 = keys1.iterator();
-	    Iterator<String> iter2 = keys2.iterator();
-
-		 // Get list iterators and fetch first value from each, if available
-	    List<String> merged = new ArrayList<String>();
-
-	    String value1 = (iter1.hasNext() ? iter1.next() : null);
-	    String value2 = (iter2.hasNext() ? iter2.next() : null);
-	    // Loop while values remain in either list
-	    while (value1 != null || value2 != null) {
-
-	    if(value2 == null){
-	    	merged.add(value1);
-            value1 = (iter1.hasNext() ? iter1.next() : null);
-	    }else if(value1 == null){
-	    	merged.add(value2);
-            value2 = (iter2.hasNext() ? iter2.next() : null);
-	    }
-	    else if(value1.equals(value2)){
-            merged.add(value1);
-            value1 = (iter1.hasNext() ? iter1.next() : null);
-            value2 = (iter2.hasNext() ? iter2.next() : null);
-
-	    } else if (value1 != null && value1.compareTo(value2) <= 0) {
-
-	            // Add list1 value to result and fetch next value, if available
-	            merged.add(value1);
-	            value1 = (iter1.hasNext() ? iter1.next() : null);
-
-	        } else {
-
-	            // Add list2 value to result and fetch next value, if available
-	            merged.add(value2);
-	            value2 = (iter2.hasNext() ? iter2.next() : null);
-
-	        }
-	    }
-
-	    // Return merged result
-	    return merged;
-
-				
-	}
-	
-	/**
-	 * merging the two lists with a linear scan.
+	 * merging the two lists with a linear scan. The lists are not changed.
 	 * @param list0
 	 * @param list1
 	 * @return the merged list.
 	 */
 	public static List<Integer> mergeOrdered( List<Integer> list0,  List<Integer> list1) {
-	    List<Integer> result = new ArrayList<Integer>();
-	    
+	    int[] merged = PostingsMerge.merge(toArray(list0), toArray(list1));
 	    
-	    while (list0.size() > 0 && list1.size() > 0) {
-	    if (list0.get(0).compareTo(list1.get(0)) < 0) {
-	            result.add(list0.get(0));
-	            list0.remove(0);
-	        }
-	        else {
-	            result.add(list1.get(0));
-	            list1.remove(0);
-	        }
+	    List<Integer> result = new ArrayList<Integer>(merged.length);
+	    for(int docID : merged){
+	    	result.add(docID);
 	    }
-
-	    if (list0.size() > 0) {
-	        result.addAll(list0);
-	    }
-	    else if (list1.size() > 0) {
-	        result.addAll(list1);
-	    }
-
 	    return result;
 	}
 	
+	private static int[] toArray(List<Integer> postingsList){
+		int[] docIDs = new int[postingsList.size()];
+		int i = 0;
+		for(Integer docID : postingsList){
+			docIDs[i++] = docID;
+		}
+		return docIDs;
+	}
+	
 	/**
-	 * Writing dict at the end of merging. no sorting here
+	 * Writes the dictionary in the text format, one "term : [docID:frequency, ...]" line per term.
 	 * @param dictionary
+	 * @param fileName
 	 */
-	private void writeDictionary(Map<String,List<Integer>> dictionary){
-	this.blockNumber++;
-		
-		Path file = Paths.get("dictionary.txt");
-		
-		dictionary.remove("");
-
-		List<String> keys = new ArrayList<String>(dictionary.keySet());
+	public static void exportDictionaryAsText(Map<String,PostingsList> dictionary, String fileName){
+		Path file = Paths.get(fileName);
 
 		List<String> lines = new ArrayList<String>();
-		for(String key : keys){
+		for(String key : dictionary.keySet()){
 			
 			String index = key + " : " + dictionary.get(key).toString();
 			lines.add(index);
@@ -387,37 +462,69 @@ public class SPIMI {
 		}
 	}
 	
+	/**
+	 * Converts a binary dictionary file to the text format, one term at a time.
+	 * @param binaryFileName
+	 * @param textFileName
+	 */
+	public static void exportDictionaryAsText(String binaryFileName, String textFileName){
+		try (BlockReader reader = new BlockReader(binaryFileName);
+				BufferedWriter writer = Files.newBufferedWriter(Paths.get(textFileName))) {
+			while(reader.next()){
+				writer.write(reader.getTerm() + " : " + reader.getPostingsList().toString());
+				writer.newLine();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+	
 	/**
 	 * Sorting and writing to disk each block (before merge)
 	 * @param dictionary
 	 */
-	private void sortAndWriteBlockToFile(Map<String,List<Integer>> dictionary){
-		this.blockNumber++;
-		
-		Path file = Paths.get("block"+this.blockNumber+".txt");
+	private void sortAndWriteBlockToFile(Map<String,PostingsList> dictionary){
+		long start = System.nanoTime();
+		int blockNumber = this.blockNumber.incrementAndGet();
 		
 		dictionary.remove("");
 
 		List<String> keys = new ArrayList<String>(dictionary.keySet());
 		Collections.sort(keys);
 
-		List<String> lines = new ArrayList<String>();
-		for(String key : keys){
-			Collections.sort(dictionary.get(key)); //sorting the postings list
-			String index = key + " : " + dictionary.get(key).toString();
-			lines.add(index);
-
+		try (BlockWriter writer = new BlockWriter(file(blockFileName(blockNumber)))) {
+			for(String key : keys){
+				PostingsList postingsList = dictionary.get(key);
+				postingsList.sort(); //sorting the postings list
+				writer.writeTerm(key, postingsList);
+			}
+		} catch (IOException e) {
+			//the block number is taken, a missing block has to stop the indexing before the merge
+			throw new UncheckedIOException("Failed to write " + blockFileName(blockNumber), e);
 		}
+		this.metrics.blockWritten(fileSize(file(blockFileName(blockNumber))), start, System.nanoTime());
+	}
+
+	//0 if the file is not there
+	private static long fileSize(String fileName){
 		try {
-			Files.write(file, lines);
+			return Files.size(Paths.get(fileName));
 		} catch (IOException e) {
-			e.printStackTrace();
+			return 0;
 		}
 	}
 	
-	//Method to parse postings from line.
-	private static List<Integer> getPostingsFromLine(String line){
-		List<Integer> postingsList = new ArrayList<Integer>();
+	/**
+	 * @param blockNumber
+	 * @return the file name of the given block.
+	 */
+	public static String blockFileName(int blockNumber){
+		return "block" + blockNumber + ".bin";
+	}
+	
+	//Method to parse postings from line, "docID:frequency" or the old format with one docID per occurrence.
+	private static PostingsList getPostingsFromLine(String line){
+		PostingsList postingsList = new PostingsList();
 		
 		line = line.replace(']', Character.MIN_VALUE); //equilavent of replacing with empty char
 		
@@ -429,7 +536,12 @@ public class SPIMI {
 		 
 		 for(String s : postings){
 			 s = s.trim();
-			 postingsList.add(Integer.valueOf(s));
+			 int separator = s.indexOf(':');
+			 if(separator < 0){
+				 postingsList.add(Integer.parseInt(s));
+			 }else{
+				 postingsList.add(Integer.parseInt(s.substring(0, separator)), Integer.parseInt(s.substring(separator + 1)));
+			 }
 		 }
 		  
 		  
@@ -438,14 +550,29 @@ public class SPIMI {
 	}
 	
 	//reading the block from disk.
-	public Map<String,List<Integer>> readBlockAndConvertToDictionary(String blockFileName){
-		Map<String, List<Integer>> blockDictionary = new LinkedHashMap<String, List<Integer>>();
+	public Map<String,PostingsList> readBlockAndConvertToDictionary(String blockFileName){
+		Map<String, PostingsList> blockDictionary = new LinkedHashMap<String, PostingsList>();
+
+		try (BlockReader reader = new BlockReader(blockFileName)) {
+			while(reader.next()){
+				blockDictionary.put(reader.getTerm(), reader.getPostingsList());
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+		
+		return blockDictionary;
+	}
+	
+	//reading a dictionary exported in the old text format.
+	public Map<String,PostingsList> readTextDictionary(String fileName){
+		Map<String, PostingsList> blockDictionary = new LinkedHashMap<String, PostingsList>();
 
 		
 		//read file into stream, try-with-resources
-		try (Stream<String> stream = Files.lines(Paths.get(blockFileName))) {
+		try (Stream<String> stream = Files.lines(Paths.get(fileName))) {
 			
-			this.blockPostingsList = new ArrayList<Integer>();
+			this.blockPostingsList = new PostingsList();
 		     
 			
 			
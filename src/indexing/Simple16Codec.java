@@ -0,0 +1,41 @@
+package indexing;
+
+/**
+ * Simple-16 codec: like Simple-9, with the 16 selectors of the 4 bits used. The extra selectors
+ * mix slots of different widths, so the bits Simple-9 leaves unused in some words hold values.
+ */
+public class Simple16Codec extends SimpleCodec {
+
+	public static final int ID = 4;
+
+	public Simple16Codec() {
+		super(new int[][] {
+			slots(28, 1),
+			slots(7, 2, 14, 1),
+			slots(7, 1, 7, 2, 7, 1),
+			slots(14, 1, 7, 2),
+			slots(14, 2),
+			slots(1, 4, 8, 3),
+			slots(1, 3, 4, 4, 3, 3),
+			slots(7, 4),
+			slots(4, 5, 2, 4),
+			slots(2, 4, 4, 5),
+			slots(3, 6, 2, 5),
+			slots(2, 5, 3, 6),
+			slots(4, 7),
+			slots(1, 10, 2, 9),
+			slots(2, 14),
+			slots(1, 28)
+		});
+	}
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return "simple16";
+	}
+}
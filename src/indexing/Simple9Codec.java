@@ -0,0 +1,34 @@
+package indexing;
+
+/**
+ * Simple-9 codec: the 28 data bits of a word hold 28 values of 1 bit, 14 of 2, 9 of 3, 7 of 4, 5 of 5,
+ * 4 of 7, 3 of 9, 2 of 14 or 1 of 28 bits. Decoding is a shift and a mask per value, without any branch on the bytes.
+ */
+public class Simple9Codec extends SimpleCodec {
+
+	public static final int ID = 3;
+
+	public Simple9Codec() {
+		super(new int[][] {
+			slots(28, 1),
+			slots(14, 2),
+			slots(9, 3),
+			slots(7, 4),
+			slots(5, 5),
+			slots(4, 7),
+			slots(3, 9),
+			slots(2, 14),
+			slots(1, 28)
+		});
+	}
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return "simple9";
+	}
+}
@@ -0,0 +1,94 @@
+package indexing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Base of the Simple-9 and Simple-16 codecs: as many values as possible are packed in each 32 bit word.
+ * The 4 high bits of a word select how its 28 other bits are split in slots, the first selector whose slots
+ * can hold the next values is used. The last word can have empty slots, the number of values is known when decoding.
+ * The values have to fit in 28 bits.
+ */
+abstract class SimpleCodec extends PostingsCodec {
+
+	private static final int DATA_BITS = 28;
+
+	//the bit widths of the slots of every selector, from the most values per word to the least
+	private final int[][] selectors;
+
+	SimpleCodec(int[][] selectors) {
+		this.selectors = selectors;
+	}
+
+	//the widths of the slots, for groups of count slots of the same width
+	static int[] slots(int... countsAndWidths) {
+		int slotCount = 0;
+		for(int i = 0; i < countsAndWidths.length; i += 2){
+			slotCount += countsAndWidths[i];
+		}
+		int[] widths = new int[slotCount];
+		int slot = 0;
+		for(int i = 0; i < countsAndWidths.length; i += 2){
+			for(int j = 0; j < countsAndWidths[i]; j++){
+				widths[slot++] = countsAndWidths[i + 1];
+			}
+		}
+		return widths;
+	}
+
+	@Override
+	public void encode(int[] values, int length, DataOutput out) throws IOException {
+		int i = 0;
+		while(i < length){
+			int selector = 0;
+			int count = 0;
+			for(; selector < this.selectors.length; selector++){
+				int[] widths = this.selectors[selector];
+				count = Math.min(widths.length, length - i);
+				if(fits(values, i, count, widths)){
+					break;
+				}
+			}
+			if(selector == this.selectors.length){
+				throw new IllegalArgumentException(this.getName() + " can not encode " + values[i] + ", the values have to fit in " + DATA_BITS + " bits");
+			}
+
+			int[] widths = this.selectors[selector];
+			int word = selector << DATA_BITS;
+			int shift = 0;
+			for(int j = 0; j < count; j++){
+				word |= values[i + j] << shift;
+				shift += widths[j];
+			}
+			out.writeInt(word);
+			i += count;
+		}
+	}
+
+	private static boolean fits(int[] values, int from, int count, int[] widths) {
+		for(int j = 0; j < count; j++){
+			if(values[from + j] >>> widths[j] != 0){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int decode(ByteBuffer in, int position, int[] values, int length) {
+		int i = 0;
+		while(i < length){
+			int word = in.getInt(position);
+			position += 4;
+			int[] widths = this.selectors[word >>> DATA_BITS];
+			int count = Math.min(widths.length, length - i);
+			for(int j = 0; j < count; j++){
+				int width = widths[j];
+				values[i++] = word & ((1 << width) - 1);
+				word >>>= width;
+			}
+		}
+		return position;
+	}
+}
@@ -0,0 +1,32 @@
+package indexing;
+
+/**
+ * Which postings lists have skip pointers and where they are: every skipInterval-th doc ID of the lists
+ * of SKIP_THRESHOLD postings or more, about sqrt(n) of them.
+ * MappedIndexWriter writes the skip pointers with this policy and the queries read them back with it.
+ */
+public class SkipPolicy {
+
+	//lists shorter than this have no skip pointers
+	public static final int SKIP_THRESHOLD = 128;
+
+	private SkipPolicy(){
+	}
+
+	/**
+	 * @param length number of postings of the list
+	 * @return the number of postings between two skip pointers, 0 if the list has no skip pointers.
+	 */
+	public static int skipInterval(int length) {
+		return length >= SKIP_THRESHOLD ? (int) Math.sqrt(length) : 0;
+	}
+
+	/**
+	 * @param length number of postings of the list
+	 * @return the number of skip pointers of the list.
+	 */
+	public static int skipCount(int length) {
+		int skipInterval = skipInterval(length);
+		return skipInterval > 0 ? (length - 1) / skipInterval + 1 : 0;
+	}
+}
@@ -0,0 +1,133 @@
+package indexing;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Writes the sorted term dictionary of the mapped index, front coded in blocks of BLOCK_SIZE terms.
+ * Sorted terms share long prefixes with the term before them ("oil", "oilfield", "oilfields"),
+ * so every term only stores the length of that prefix and the rest of its bytes.
+ * The first term of a block is written in full, so a block can be decoded without the ones before it,
+ * and the block index is searched by binary search on the first terms.
+ *
+ * File layout:
+ * header     : magic (int), version (int), number of terms (int), block size (int), offset of the block index (long),
+ *              number of documents (int), offset of the postings of all the documents (long)
+ * each block : for each term: shared prefix length (vbyte), suffix length (vbyte), suffix in utf-8,
+ *              document frequency (vbyte), bytes of postings since the previous term of the block (vbyte)
+ * block index: for each block: offset of the block (int), offset of the postings of its first term (long)
+ */
+public class TermDictionaryWriter implements Closeable {
+
+	public static final int MAGIC = 0x53504D54; // "SPMT"
+	public static final int VERSION = 2;
+	public static final int HEADER_SIZE = 4 + 4 + 4 + 4 + 8 + 4 + 8;
+	public static final int BLOCK_INDEX_ENTRY_SIZE = 4 + 8;
+	public static final int BLOCK_SIZE = 16;
+
+	private static final int BUFFER_SIZE = 1 << 16;
+
+	private FileOutputStream fileStream;
+	private DataOutputStream out;
+	private int termCount;
+
+	private byte[] previousTerm = new byte[0];
+	private long previousPostingsOffset;
+
+	//the block index, written at the end
+	private int[] blockOffsets = new int[256];
+	private long[] blockPostingsOffsets = new long[256];
+
+	private int documentCount;
+	private long allDocumentsOffset;
+
+	public TermDictionaryWriter(String fileName) throws IOException {
+		this.fileStream = new FileOutputStream(fileName);
+		this.out = new DataOutputStream(new BufferedOutputStream(this.fileStream, BUFFER_SIZE));
+		//placeholder header, the real one is written on close
+		this.out.write(new byte[HEADER_SIZE]);
+	}
+
+	public int getTermCount() {
+		return termCount;
+	}
+
+	/**
+	 * Adds the next term, the terms have to come in sorted order.
+	 * @param term
+	 * @param documentFrequency number of postings of the term
+	 * @param postingsOffset where the postings of the term start in the postings file
+	 * @throws IOException
+	 */
+	public void add(String term, int documentFrequency, long postingsOffset) throws IOException {
+		byte[] termBytes = term.getBytes(StandardCharsets.UTF_8);
+		int prefix = 0;
+		if(this.termCount % BLOCK_SIZE == 0){
+			int block = this.termCount / BLOCK_SIZE;
+			if(block == this.blockOffsets.length){
+				this.blockOffsets = Arrays.copyOf(this.blockOffsets, block * 2);
+				this.blockPostingsOffsets = Arrays.copyOf(this.blockPostingsOffsets, block * 2);
+			}
+			this.blockOffsets[block] = this.out.size();
+			this.blockPostingsOffsets[block] = postingsOffset;
+			this.previousPostingsOffset = postingsOffset;
+		}else{
+			int length = Math.min(termBytes.length, this.previousTerm.length);
+			while(prefix < length && termBytes[prefix] == this.previousTerm[prefix]){
+				prefix++;
+			}
+		}
+
+		VariableByte.writeVInt(this.out, prefix);
+		VariableByte.writeVInt(this.out, termBytes.length - prefix);
+		this.out.write(termBytes, prefix, termBytes.length - prefix);
+		VariableByte.writeVInt(this.out, documentFrequency);
+		VariableByte.writeVInt(this.out, (int) (postingsOffset - this.previousPostingsOffset));
+
+		this.previousTerm = termBytes;
+		this.previousPostingsOffset = postingsOffset;
+		this.termCount++;
+	}
+
+	/**
+	 * @param documentCount number of documents of the index
+	 * @param allDocumentsOffset where the postings of all the documents start in the postings file
+	 */
+	public void setAllDocuments(int documentCount, long allDocumentsOffset) {
+		this.documentCount = documentCount;
+		this.allDocumentsOffset = allDocumentsOffset;
+	}
+
+	/**
+	 * Writes the block index and the final header at the start of the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			long blockIndexOffset = this.out.size();
+			int blockCount = (this.termCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+			for(int i = 0; i < blockCount; i++){
+				this.out.writeInt(this.blockOffsets[i]);
+				this.out.writeLong(this.blockPostingsOffsets[i]);
+			}
+			this.out.flush();
+
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			header.putInt(MAGIC).putInt(VERSION).putInt(this.termCount).putInt(BLOCK_SIZE).putLong(blockIndexOffset);
+			header.putInt(this.documentCount).putLong(this.allDocumentsOffset);
+			header.flip();
+			long position = 0;
+			while(header.hasRemaining()){
+				position += this.fileStream.getChannel().write(header, position);
+			}
+		} finally {
+			this.out.close();
+		}
+	}
+}
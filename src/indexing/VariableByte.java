@@ -0,0 +1,46 @@
+package indexing;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Variable byte encoding of non negative integers. Each byte holds 7 bits of the value,
+ * the high bit is set on every byte except the last one.
+ * Used for the doc ID gaps and the lengths in the block and dictionary files.
+ */
+public class VariableByte {
+
+	private VariableByte(){
+	}
+
+	/**
+	 * Writes a non negative int using as few bytes as possible (1 to 5).
+	 * @param out the output to write to
+	 * @param value the value to encode, must be >= 0
+	 * @throws IOException
+	 */
+	public static void writeVInt(DataOutput out, int value) throws IOException {
+		while((value & ~0x7F) != 0){
+			out.writeByte((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte(value);
+	}
+
+	/**
+	 * Reads an int written by writeVInt.
+	 * @param in the input to read from
+	 * @return the decoded value
+	 * @throws IOException
+	 */
+	public static int readVInt(DataInput in) throws IOException {
+		int b = in.readByte();
+		int value = b & 0x7F;
+		for(int shift = 7; (b & 0x80) != 0; shift += 7){
+			b = in.readByte();
+			value |= (b & 0x7F) << shift;
+		}
+		return value;
+	}
+}
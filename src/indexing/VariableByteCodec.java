@@ -0,0 +1,94 @@
+package indexing;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Variable byte codec, 7 bits of the value per byte, see VariableByte.
+ * The postings use the encoding of the block files instead of two sequences: each doc ID gap is shifted left
+ * with the low bit set when the frequency is 1, and the frequency only follows when it is more than 1.
+ */
+public class VariableByteCodec extends PostingsCodec {
+
+	public static final int ID = 0;
+
+	@Override
+	public int getId() {
+		return ID;
+	}
+
+	@Override
+	public String getName() {
+		return "vbyte";
+	}
+
+	@Override
+	public void encode(int[] values, int length, DataOutput out) throws IOException {
+		for(int i = 0; i < length; i++){
+			VariableByte.writeVInt(out, values[i]);
+		}
+	}
+
+	@Override
+	public int decode(ByteBuffer in, int position, int[] values, int length) {
+		for(int i = 0; i < length; i++){
+			int value = 0;
+			for(int shift = 0; ; shift += 7){
+				byte b = in.get(position++);
+				value |= (b & 0x7F) << shift;
+				if(b >= 0){
+					break;
+				}
+			}
+			values[i] = value;
+		}
+		return position;
+	}
+
+	@Override
+	public void encodePostings(int[] docIDs, int[] frequencies, int length, DataOutput out) throws IOException {
+		int previous = 0;
+		for(int i = 0; i < length; i++){
+			int gap = docIDs[i] - previous;
+			if(frequencies[i] == 1){
+				VariableByte.writeVInt(out, gap << 1 | 1);
+			}else{
+				VariableByte.writeVInt(out, gap << 1);
+				VariableByte.writeVInt(out, frequencies[i]);
+			}
+			previous = docIDs[i];
+		}
+	}
+
+	@Override
+	public int decodePostings(ByteBuffer in, int position, int[] docIDs, int[] frequencies, int length) {
+		int docID = 0;
+		for(int i = 0; i < length; i++){
+			int code = 0;
+			for(int shift = 0; ; shift += 7){
+				byte b = in.get(position++);
+				code |= (b & 0x7F) << shift;
+				if(b >= 0){
+					break;
+				}
+			}
+			docID += code >>> 1;
+			docIDs[i] = docID;
+			if((code & 1) != 0){
+				frequencies[i] = 1;
+			}else{
+				int frequency = 0;
+				for(int shift = 0; ; shift += 7){
+					byte b = in.get(position++);
+					frequency |= (b & 0x7F) << shift;
+					if(b >= 0){
+						break;
+					}
+				}
+				frequencies[i] = frequency;
+			}
+		}
+		return position;
+	}
+}
@@ -0,0 +1,58 @@
+package query;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Doc IDs found in all the iterators. The rarest iterator leads, and every other one is advanced
+ * to its doc ID; when one of them jumps further the lead is advanced to it (leapfrog).
+ */
+class AndIterator extends DocIDIterator {
+
+	private final DocIDIterator[] iterators;
+	private int docID = -1;
+
+	AndIterator(List<DocIDIterator> iterators) {
+		this.iterators = iterators.toArray(new DocIDIterator[0]);
+		Arrays.sort(this.iterators, Comparator.comparingLong(DocIDIterator::cost));
+	}
+
+	@Override
+	public int docID() {
+		return docID;
+	}
+
+	@Override
+	public int next() {
+		return this.docID = this.align(this.iterators[0].next());
+	}
+
+	@Override
+	public int advance(int target) {
+		return this.docID = this.align(this.iterators[0].advance(target));
+	}
+
+	//moves all the iterators to the first doc ID >= target they all have
+	private int align(int target) {
+		int i = 1;
+		while(target != NO_MORE_DOCS && i < this.iterators.length){
+			int docID = this.iterators[i].docID();
+			if(docID < target){
+				docID = this.iterators[i].advance(target);
+			}
+			if(docID == target){
+				i++;
+			}else{
+				target = this.iterators[0].advance(docID);
+				i = 1;
+			}
+		}
+		return target;
+	}
+
+	@Override
+	public long cost() {
+		return this.iterators[0].cost();
+	}
+}
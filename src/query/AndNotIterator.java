@@ -0,0 +1,50 @@
+package query;
+
+/**
+ * Doc IDs of an iterator that are not in another one, the excluded iterator is only advanced
+ * to the doc IDs that are checked.
+ */
+class AndNotIterator extends DocIDIterator {
+
+	private final DocIDIterator included;
+	private final DocIDIterator excluded;
+	private int docID = -1;
+
+	AndNotIterator(DocIDIterator included, DocIDIterator excluded) {
+		this.included = included;
+		this.excluded = excluded;
+	}
+
+	@Override
+	public int docID() {
+		return docID;
+	}
+
+	@Override
+	public int next() {
+		return this.docID = this.skipExcluded(this.included.next());
+	}
+
+	@Override
+	public int advance(int target) {
+		return this.docID = this.skipExcluded(this.included.advance(target));
+	}
+
+	private int skipExcluded(int docID) {
+		while(docID != NO_MORE_DOCS){
+			if(this.excluded.docID() < docID){
+				this.excluded.advance(docID);
+			}
+			if(this.excluded.docID() != docID){
+				return docID;
+			}
+			docID = this.included.next();
+		}
+		return docID;
+	}
+
+	@Override
+	public long cost() {
+		return this.included.cost();
+	}
+}
@@ -0,0 +1,160 @@
+package query;
+
+import java.util.Arrays;
+import java.util.List;
+
+import indexing.DocumentLengths;
+
+/**
+ * Okapi BM25 ranking of the documents, with the document lengths and collection statistics of the index.
+ * score(d) = sum over the query terms of idf(t) * tf * (k1 + 1) / (tf + k1 * (1 - b + b * |d| / avgdl))
+ * with idf(t) = ln(1 + (N - df + 0.5) / (df + 0.5)), so every term adds a positive score.
+ *
+ * The top k documents are found with MaxScore: every term has an upper bound, the best score it gives
+ * to any document. Once the heap is full, the terms whose bounds add up to less than the k-th score
+ * can not bring a new document in by themselves, so only the other terms pick the candidate documents
+ * and the rare ones are only checked, with skips, for the candidates that can still make it.
+ */
+public class BM25 {
+
+	public static final double K1 = 1.2;
+	public static final double B = 0.75;
+
+	private final int documentCount;
+	private final double averageLength;
+	//k1 * (1 - b + b * |d| / avgdl) by doc ID
+	private final double[] lengthNorms;
+
+	public BM25(DocumentLengths documentLengths) {
+		this.documentCount = documentLengths.size();
+		this.averageLength = documentLengths.getAverageLength();
+
+		int[] lengths = documentLengths.toArrayByDocID();
+		this.lengthNorms = new double[lengths.length];
+		for(int docID = 0; docID < lengths.length; docID++){
+			this.lengthNorms[docID] = this.lengthNorm(lengths[docID]);
+		}
+	}
+
+	public int getDocumentCount() {
+		return documentCount;
+	}
+
+	public double getAverageLength() {
+		return averageLength;
+	}
+
+	/**
+	 * @param documentFrequency number of documents containing the term
+	 * @return the inverse document frequency of the term.
+	 */
+	public double idf(int documentFrequency) {
+		return Math.log(1 + (this.documentCount - documentFrequency + 0.5) / (documentFrequency + 0.5));
+	}
+
+	/**
+	 * @param idf of the term
+	 * @param termFrequency number of occurrences of the term in the document
+	 * @param docID
+	 * @return the score the term gives to the document.
+	 */
+	public double score(double idf, int termFrequency, int docID) {
+		//a document without a recorded length is taken as an average one
+		double lengthNorm = docID >= 0 && docID < this.lengthNorms.length ? this.lengthNorms[docID] : K1;
+		return idf * termFrequency * (K1 + 1) / (termFrequency + lengthNorm);
+	}
+
+	/**
+	 * @param postings of the term
+	 * @return the best score the term gives to any of its documents.
+	 */
+	public double maxScore(Postings postings) {
+		double idf = this.idf(postings.size());
+		double maxScore = 0;
+		for(int i = 0; i < postings.size(); i++){
+			maxScore = Math.max(maxScore, this.score(idf, postings.getFrequency(i), postings.get(i)));
+		}
+		return maxScore;
+	}
+
+	/**
+	 * Finds the k documents with the best score for the terms, with MaxScore pruning.
+	 * @param postings the postings of each query term
+	 * @param maxScores the upper bound of each term, from maxScore()
+	 * @param k number of documents to return
+	 * @return the documents from the best to the worst score.
+	 */
+	public List<ScoredDocument> topK(Postings[] postings, double[] maxScores, int k) {
+		int n = postings.length;
+		TopKHeap heap = new TopKHeap(k);
+		if(n == 0 || k <= 0){
+			return heap.toList();
+		}
+
+		//the terms by increasing upper bound, and the sum of the bounds up to each one
+		Integer[] order = new Integer[n];
+		for(int i = 0; i < n; i++){
+			order[i] = i;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(maxScores[a], maxScores[b]));
+
+		Postings[] terms = new Postings[n];
+		double[] idfs = new double[n];
+		double[] boundSums = new double[n];
+		for(int i = 0; i < n; i++){
+			terms[i] = postings[order[i]];
+			idfs[i] = this.idf(terms[i].size());
+			boundSums[i] = maxScores[order[i]] + (i > 0 ? boundSums[i - 1] : 0);
+		}
+
+		int[] cursors = new int[n];
+		double threshold = heap.threshold();
+		//terms before the first essential one can not bring a document into the heap on their own
+		int firstEssential = 0;
+
+		while(firstEssential < n){
+			//the next candidate is the smallest doc ID under the cursors of the essential terms
+			int docID = Integer.MAX_VALUE;
+			for(int i = firstEssential; i < n; i++){
+				if(cursors[i] < terms[i].size()){
+					docID = Math.min(docID, terms[i].get(cursors[i]));
+				}
+			}
+			if(docID == Integer.MAX_VALUE){
+				break;
+			}
+
+			double score = 0;
+			for(int i = firstEssential; i < n; i++){
+				if(cursors[i] < terms[i].size() && terms[i].get(cursors[i]) == docID){
+					score += this.score(idfs[i], terms[i].getFrequency(cursors[i]), docID);
+					cursors[i]++;
+				}
+			}
+
+			//the non essential terms are only checked while the document can still beat the threshold
+			for(int i = firstEssential - 1; i >= 0; i--){
+				if(score + boundSums[i] <= threshold){
+					break;
+				}
+				cursors[i] = terms[i].advance(cursors[i], docID);
+				if(cursors[i] < terms[i].size() && terms[i].get(cursors[i]) == docID){
+					score += this.score(idfs[i], terms[i].getFrequency(cursors[i]), docID);
+				}
+			}
+
+			if(heap.offer(docID, score) && heap.isFull()){
+				threshold = heap.threshold();
+				while(firstEssential < n && boundSums[firstEssential] <= threshold){
+					firstEssential++;
+				}
+			}
+		}
+
+		return heap.toList();
+	}
+
+	private double lengthNorm(int length) {
+		return K1 * (1 - B + (this.averageLength > 0 ? B * length / this.averageLength : B));
+	}
+}
@@ -0,0 +1,36 @@
+package query;
+
+/**
+ * Iterator over the sorted doc IDs matching a part of a query.
+ * The iterators of a query are put together in a tree, and the doc IDs are produced one at a time
+ * while the tree is walked, so no intermediate result is built.
+ * An iterator starts before its first doc ID, docID() is -1 until next() or advance() is called.
+ */
+public abstract class DocIDIterator {
+
+	//returned once there are no more doc IDs
+	public static final int NO_MORE_DOCS = Integer.MAX_VALUE;
+
+	/**
+	 * @return the current doc ID, -1 before the first call to next() or advance(), NO_MORE_DOCS at the end.
+	 */
+	public abstract int docID();
+
+	/**
+	 * Moves to the next doc ID.
+	 * @return the new current doc ID, NO_MORE_DOCS at the end.
+	 */
+	public abstract int next();
+
+	/**
+	 * Moves to the first doc ID that is >= target, target has to be bigger than the current doc ID.
+	 * @param target
+	 * @return the new current doc ID, NO_MORE_DOCS at the end.
+	 */
+	public abstract int advance(int target);
+
+	/**
+	 * @return an estimate of the number of doc IDs, to put the rarest iterators first.
+	 */
+	public abstract long cost();
+}
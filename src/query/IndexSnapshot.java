@@ -0,0 +1,228 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import indexing.DocumentLengths;
+import indexing.PostingsList;
+
+/**
+ * Immutable, read-only view of an index, shared by every thread running queries.
+ * The postings are copied from the dictionary when the snapshot is built and never change after,
+ * so readers do not need any lock. A new index is a new snapshot, the queries already running
+ * keep the one they started with.
+ *
+ * A snapshot can also be on a MappedIndex, the postings then stay in the mapped files and are only
+ * decoded when a query asks for them, and the upper bound score of a term is computed the first time it is needed.
+ */
+public final class IndexSnapshot {
+
+	private static final AtomicLong VERSIONS = new AtomicLong();
+
+	private final long version;
+	//sorted distinct doc IDs of every term, with skip pointers for the long lists, null on a mapped index
+	private final Map<String,Postings> postings;
+	//the index on disk, null when the postings are in memory
+	private final MappedIndex mappedIndex;
+	//every document of the index, for the NOT queries
+	private final Postings allDocuments;
+	//BM25 scorer and the upper bound score of every term, null without the document lengths
+	private final BM25 bm25;
+	private final Map<String,Double> maxScores;
+
+	private IndexSnapshot(Map<String,Postings> postings, MappedIndex mappedIndex, Postings allDocuments, BM25 bm25, Map<String,Double> maxScores) {
+		this.version = VERSIONS.incrementAndGet();
+		this.postings = postings;
+		this.mappedIndex = mappedIndex;
+		this.allDocuments = allDocuments;
+		this.bm25 = bm25;
+		this.maxScores = maxScores;
+	}
+
+	/**
+	 * Builds a snapshot of the dictionary.
+	 * @param dictionary the postings of every term, they are copied
+	 * @param documentLengths for the ranked queries, null if there is none
+	 * @return the snapshot
+	 */
+	public static IndexSnapshot of(Map<String,PostingsList> dictionary, DocumentLengths documentLengths) {
+		Map<String,Postings> postings = new HashMap<String,Postings>();
+		for(Map.Entry<String,PostingsList> entry : dictionary.entrySet()){
+			postings.put(entry.getKey(), Postings.fromPostingsList(entry.getValue()));
+		}
+		return build(Collections.unmodifiableMap(postings), allDocuments(postings), documentLengths);
+	}
+
+	/**
+	 * Builds a snapshot on a memory mapped index, only the list of all the documents is decoded.
+	 * @param mappedIndex
+	 * @param documentLengths for the ranked queries, null if there is none
+	 * @return the snapshot
+	 */
+	public static IndexSnapshot of(MappedIndex mappedIndex, DocumentLengths documentLengths) {
+		BM25 bm25 = documentLengths != null ? new BM25(documentLengths) : null;
+		//filled as the terms are queried
+		Map<String,Double> maxScores = bm25 != null ? new ConcurrentHashMap<String,Double>() : null;
+		return new IndexSnapshot(null, mappedIndex, mappedIndex.getAllDocuments(), bm25, maxScores);
+	}
+
+	/**
+	 * @param documentLengths for the ranked queries, null if there is none
+	 * @return a snapshot with the postings of this one and the given document lengths.
+	 */
+	public IndexSnapshot withDocumentLengths(DocumentLengths documentLengths) {
+		if(this.mappedIndex != null){
+			return of(this.mappedIndex, documentLengths);
+		}
+		return build(this.postings, this.allDocuments, documentLengths);
+	}
+
+	//the upper bounds only change with the index, so they are computed once for every term
+	private static IndexSnapshot build(Map<String,Postings> postings, Postings allDocuments, DocumentLengths documentLengths) {
+		if(documentLengths == null){
+			return new IndexSnapshot(postings, null, allDocuments, null, null);
+		}
+		BM25 bm25 = new BM25(documentLengths);
+		Map<String,Double> maxScores = new HashMap<String,Double>();
+		for(Map.Entry<String,Postings> entry : postings.entrySet()){
+			maxScores.put(entry.getKey(), bm25.maxScore(entry.getValue()));
+		}
+		return new IndexSnapshot(postings, null, allDocuments, bm25, Collections.unmodifiableMap(maxScores));
+	}
+
+	//the doc IDs found in any postings list, with their number of distinct terms as frequency
+	private static Postings allDocuments(Map<String,Postings> postings) {
+		int maxDocID = -1;
+		for(Postings termPostings : postings.values()){
+			if(termPostings.size() > 0){
+				maxDocID = Math.max(maxDocID, termPostings.get(termPostings.size() - 1));
+			}
+		}
+		int[] termCounts = new int[maxDocID + 1];
+		int size = 0;
+		for(Postings termPostings : postings.values()){
+			for(int i = 0; i < termPostings.size(); i++){
+				if(termCounts[termPostings.get(i)]++ == 0){
+					size++;
+				}
+			}
+		}
+
+		int[] docIDs = new int[size];
+		int[] frequencies = new int[size];
+		int position = 0;
+		for(int docID = 0; docID <= maxDocID; docID++){
+			if(termCounts[docID] > 0){
+				docIDs[position] = docID;
+				frequencies[position] = termCounts[docID];
+				position++;
+			}
+		}
+		return new Postings(docIDs, frequencies);
+	}
+
+	/**
+	 * @return a number that is different for every snapshot.
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * @param term lower case term
+	 * @return the postings of the term, null if it is not in the dictionary.
+	 */
+	public Postings getPostings(String term) {
+		if(this.mappedIndex != null){
+			return this.mappedIndex.getPostings(term);
+		}
+		return this.postings.get(term);
+	}
+
+	/**
+	 * @param term lower case term
+	 * @return the number of documents containing the term.
+	 */
+	public int getDocumentFrequency(String term) {
+		if(this.mappedIndex != null){
+			return this.mappedIndex.getDocumentFrequency(term);
+		}
+		Postings termPostings = this.postings.get(term);
+		return termPostings != null ? termPostings.size() : 0;
+	}
+
+	/**
+	 * A range scan of the sorted term dictionary on a mapped index, a pass over the terms in memory otherwise.
+	 * @param prefix lower case prefix
+	 * @return the terms starting with prefix, in sorted order.
+	 */
+	public List<String> getTermsWithPrefix(String prefix) {
+		if(this.mappedIndex != null){
+			return this.mappedIndex.getTermsWithPrefix(prefix);
+		}
+		List<String> terms = new ArrayList<String>();
+		for(String term : this.postings.keySet()){
+			if(term.startsWith(prefix)){
+				terms.add(term);
+			}
+		}
+		Collections.sort(terms);
+		return terms;
+	}
+
+	/**
+	 * @return the postings of all the documents of the index.
+	 */
+	public Postings getAllDocuments() {
+		return allDocuments;
+	}
+
+	public int getTermCount() {
+		return this.mappedIndex != null ? this.mappedIndex.getTermCount() : this.postings.size();
+	}
+
+	/**
+	 * @return the memory mapped index of the snapshot, null if its postings are in memory.
+	 */
+	public MappedIndex getMappedIndex() {
+		return mappedIndex;
+	}
+
+	/**
+	 * @return true if the snapshot has the document lengths to rank the results.
+	 */
+	public boolean isRanked() {
+		return this.bm25 != null;
+	}
+
+	/**
+	 * @return the BM25 scorer, null if there are no document lengths.
+	 */
+	public BM25 getBM25() {
+		return bm25;
+	}
+
+	/**
+	 * @param term lower case term
+	 * @return the best BM25 score of the term, 0 if it is not in the dictionary or there are no document lengths.
+	 */
+	public double getMaxScore(String term) {
+		if(this.maxScores == null){
+			return 0;
+		}
+		Double maxScore = this.maxScores.get(term);
+		if(maxScore == null && this.mappedIndex != null){
+			Postings termPostings = this.mappedIndex.getPostings(term);
+			if(termPostings != null){
+				maxScore = this.bm25.maxScore(termPostings);
+				this.maxScores.put(term, maxScore);
+			}
+		}
+		return maxScore != null ? maxScore : 0;
+	}
+}
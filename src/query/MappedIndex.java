@@ -0,0 +1,138 @@
+package query;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import indexing.MappedIndexWriter;
+import indexing.PostingsCodec;
+import indexing.PostingsCodecs;
+import indexing.SkipPolicy;
+import indexing.VariableByteCodec;
+
+/**
+ * Read-only index on the memory mapped terms and postings files written by MappedIndexWriter.
+ * Opening it only maps the files, nothing is read: the pages are loaded by the OS when a query touches them
+ * and stay in its page cache, not on the Java heap.
+ * A term is found in the front coded TermDictionary, and its postings are only decoded when a query asks for them.
+ * The buffers are only read with absolute gets, so one index can be shared by all the query threads.
+ */
+public class MappedIndex {
+
+	private final TermDictionary terms;
+	private final ByteBuffer postings;
+	//the codec the postings were written with
+	private final PostingsCodec codec;
+	//the skip pointers are variable byte gaps whatever the codec of the postings
+	private static final PostingsCodec SKIP_CODEC = PostingsCodecs.forId(VariableByteCodec.ID);
+
+	private MappedIndex(TermDictionary terms, ByteBuffer postings, PostingsCodec codec) {
+		this.terms = terms;
+		this.postings = postings;
+		this.codec = codec;
+	}
+
+	/**
+	 * Maps the files of the index.
+	 * @param termsFileName
+	 * @param postingsFileName
+	 * @return the index
+	 * @throws IOException if a file is missing, is not an index file, or is too big to be mapped
+	 */
+	public static MappedIndex open(String termsFileName, String postingsFileName) throws IOException {
+		TermDictionary terms = new TermDictionary(map(termsFileName), termsFileName);
+		ByteBuffer postings = map(postingsFileName);
+		if(postings.limit() < MappedIndexWriter.POSTINGS_HEADER_SIZE || postings.getInt(0) != MappedIndexWriter.POSTINGS_MAGIC){
+			throw new IOException(postingsFileName + " is not a postings file");
+		}
+		int version = postings.getInt(4);
+		if(version != MappedIndexWriter.VERSION){
+			throw new IOException(postingsFileName + " has unsupported version " + version);
+		}
+		PostingsCodec codec = PostingsCodecs.forId(postings.getInt(8));
+		if(codec == null){
+			throw new IOException(postingsFileName + " has unknown postings codec " + postings.getInt(8));
+		}
+		return new MappedIndex(terms, postings, codec);
+	}
+
+	//the mapping stays valid after the channel is closed
+	private static ByteBuffer map(String fileName) throws IOException {
+		try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+			if(channel.size() > Integer.MAX_VALUE){
+				throw new IOException(fileName + " is too big to be mapped");
+			}
+			return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+		}
+	}
+
+	public int getTermCount() {
+		return this.terms.size();
+	}
+
+	public TermDictionary getTermDictionary() {
+		return terms;
+	}
+
+	public PostingsCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Only reads the term dictionary, the postings are not decoded.
+	 * @param term lower case term
+	 * @return the number of documents containing the term.
+	 */
+	public int getDocumentFrequency(String term) {
+		TermDictionary.Entry entry = this.terms.get(term);
+		return entry != null ? entry.getDocumentFrequency() : 0;
+	}
+
+	/**
+	 * Decodes the postings of a term, every call decodes them again.
+	 * @param term lower case term
+	 * @return the postings of the term, null if it is not in the index.
+	 */
+	public Postings getPostings(String term) {
+		TermDictionary.Entry entry = this.terms.get(term);
+		return entry != null ? this.decode(entry.getPostingsOffset(), entry.getDocumentFrequency()) : null;
+	}
+
+	/**
+	 * @param prefix
+	 * @return the terms starting with prefix, in sorted order.
+	 */
+	public List<String> getTermsWithPrefix(String prefix) {
+		List<String> terms = new ArrayList<String>();
+		for(Iterator<TermDictionary.Entry> entries = this.terms.prefix(prefix); entries.hasNext(); ){
+			terms.add(entries.next().getTerm());
+		}
+		return terms;
+	}
+
+	/**
+	 * @return the postings of all the documents of the index, with their number of distinct terms as frequency.
+	 */
+	public Postings getAllDocuments() {
+		return this.decode(this.terms.getAllDocumentsOffset(), this.terms.getDocumentCount());
+	}
+
+	private Postings decode(long offset, int length) {
+		int[] docIDs = new int[length];
+		int[] frequencies = new int[length];
+		int position = this.codec.decodePostings(this.postings, (int) offset, docIDs, frequencies, length);
+
+		//the skip pointers stored after the postings
+		int[] skipDocIDs = new int[SkipPolicy.skipCount(length)];
+		SKIP_CODEC.decode(this.postings, position, skipDocIDs, skipDocIDs.length);
+		for(int i = 1; i < skipDocIDs.length; i++){
+			skipDocIDs[i] += skipDocIDs[i - 1];
+		}
+		return new Postings(docIDs, frequencies, skipDocIDs);
+	}
+}
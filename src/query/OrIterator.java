@@ -0,0 +1,73 @@
+package query;
+
+import java.util.List;
+
+/**
+ * Doc IDs found in any of the iterators, each one once.
+ * A heap of the iterators ordered by their current doc ID gives the smallest one.
+ */
+class OrIterator extends DocIDIterator {
+
+	private final DocIDIterator[] heap;
+	private int docID = -1;
+
+	OrIterator(List<DocIDIterator> iterators) {
+		this.heap = iterators.toArray(new DocIDIterator[0]);
+	}
+
+	@Override
+	public int docID() {
+		return docID;
+	}
+
+	@Override
+	public int next() {
+		if(this.docID == NO_MORE_DOCS){
+			return NO_MORE_DOCS;
+		}
+		//every iterator on the current doc ID moves on, they are all at the top of the heap
+		while(this.heap[0].docID() == this.docID){
+			this.heap[0].next();
+			this.siftDown(0);
+		}
+		return this.docID = this.heap[0].docID();
+	}
+
+	@Override
+	public int advance(int target) {
+		while(this.heap[0].docID() < target){
+			this.heap[0].advance(target);
+			this.siftDown(0);
+		}
+		return this.docID = this.heap[0].docID();
+	}
+
+	private void siftDown(int position) {
+		DocIDIterator iterator = this.heap[position];
+		int docID = iterator.docID();
+		while(true){
+			int child = 2 * position + 1;
+			if(child >= this.heap.length){
+				break;
+			}
+			if(child + 1 < this.heap.length && this.heap[child + 1].docID() < this.heap[child].docID()){
+				child++;
+			}
+			if(docID <= this.heap[child].docID()){
+				break;
+			}
+			this.heap[position] = this.heap[child];
+			position = child;
+		}
+		this.heap[position] = iterator;
+	}
+
+	@Override
+	public long cost() {
+		long cost = 0;
+		for(DocIDIterator iterator : this.heap){
+			cost += iterator.cost();
+		}
+		return cost;
+	}
+}
@@ -0,0 +1,233 @@
+package query;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import indexing.PostingsList;
+import indexing.SkipPolicy;
+
+/**
+ * Sorted postings list of distinct doc IDs and their term frequencies, used to answer the queries.
+ * The postings are immutable once built.
+ * Long lists also store skip pointers: every skipInterval-th doc ID (about sqrt(n) of them),
+ * so advance() can jump over whole segments of the list before searching inside one.
+ * The MappedIndex reads the skip pointers stored with the postings, the other lists sample them when they are built.
+ */
+public class Postings {
+
+	//lists shorter than this are searched without skip pointers
+	public static final int SKIP_THRESHOLD = SkipPolicy.SKIP_THRESHOLD;
+
+	private static final int[] NO_SKIPS = new int[0];
+
+	private final int[] docIDs;
+	private final int[] frequencies;
+	private final int skipInterval;
+	private final int[] skipDocIDs;
+
+	/**
+	 * @param docIDs sorted distinct doc IDs, the array is kept by the postings
+	 * @param frequencies the term frequency in each document, the array is kept by the postings
+	 */
+	public Postings(int[] docIDs, int[] frequencies) {
+		this(docIDs, frequencies, sampleSkips(docIDs));
+	}
+
+	/**
+	 * @param docIDs sorted distinct doc IDs, the array is kept by the postings
+	 * @param frequencies the term frequency in each document, the array is kept by the postings
+	 * @param skipDocIDs every SkipPolicy.skipInterval()-th doc ID, as stored in the index, the array is kept by the postings
+	 */
+	Postings(int[] docIDs, int[] frequencies, int[] skipDocIDs) {
+		if(skipDocIDs.length != SkipPolicy.skipCount(docIDs.length)){
+			throw new IllegalArgumentException(skipDocIDs.length + " skip pointers for " + docIDs.length + " postings");
+		}
+		this.docIDs = docIDs;
+		this.frequencies = frequencies;
+		this.skipInterval = SkipPolicy.skipInterval(docIDs.length);
+		this.skipDocIDs = skipDocIDs.length > 0 ? skipDocIDs : NO_SKIPS;
+	}
+
+	private static int[] sampleSkips(int[] docIDs) {
+		int skipInterval = SkipPolicy.skipInterval(docIDs.length);
+		int[] skipDocIDs = new int[SkipPolicy.skipCount(docIDs.length)];
+		for(int i = 0; i < skipDocIDs.length; i++){
+			skipDocIDs[i] = docIDs[i * skipInterval];
+		}
+		return skipDocIDs;
+	}
+
+	/**
+	 * @param postingsList sorted postings of the index
+	 * @return the postings, with a copy of the arrays of the list
+	 */
+	public static Postings fromPostingsList(PostingsList postingsList) {
+		return new Postings(postingsList.toArray(), postingsList.frequenciesToArray());
+	}
+
+	/**
+	 * Builds the postings from a list of doc IDs with one entry per occurrence.
+	 * @param docIDList sorted doc IDs, the duplicates are counted in the frequencies
+	 * @return the postings
+	 */
+	public static Postings fromDocIDs(List<Integer> docIDList) {
+		PostingsList postingsList = new PostingsList(docIDList.size());
+		for(Integer docID : docIDList){
+			postingsList.add(docID);
+		}
+		return fromPostingsList(postingsList);
+	}
+
+	public int size() {
+		return this.docIDs.length;
+	}
+
+	public int get(int index) {
+		return this.docIDs[index];
+	}
+
+	public int getFrequency(int index) {
+		return this.frequencies[index];
+	}
+
+	public boolean hasSkips() {
+		return this.skipDocIDs.length > 0;
+	}
+
+	/**
+	 * Finds the first position at or after from whose doc ID is >= target.
+	 * The skip pointers are followed first, then the segment is searched by galloping:
+	 * steps of 1, 2, 4... until the target is passed, and a binary search in the last step.
+	 * @param from position to start from
+	 * @param target
+	 * @return the position, size() if every doc ID after from is smaller than target.
+	 */
+	public int advance(int from, int target) {
+		int length = this.docIDs.length;
+		if(from >= length || this.docIDs[from] >= target){
+			return from;
+		}
+
+		if(this.skipInterval > 0){
+			int skip = from / this.skipInterval + 1;
+			while(skip < this.skipDocIDs.length && this.skipDocIDs[skip] <= target){
+				from = skip * this.skipInterval;
+				skip++;
+			}
+			if(this.docIDs[from] >= target){
+				return from;
+			}
+		}
+
+		//galloping, docIDs[low] < target
+		int low = from;
+		int step = 1;
+		int high = low + step;
+		while(high < length && this.docIDs[high] < target){
+			low = high;
+			step <<= 1;
+			high = low + step;
+		}
+
+		//binary search in (low, high]
+		int position = Arrays.binarySearch(this.docIDs, low + 1, Math.min(high + 1, length), target);
+		return position >= 0 ? position : -position - 1;
+	}
+
+	/**
+	 * Intersects two postings lists. The shorter list is walked and each of its doc IDs is
+	 * searched in the longer one with advance(), so the cost is O(m log(n/m)) for lists of m <= n doc IDs.
+	 * @param other
+	 * @return the doc IDs in both lists, with the sum of their frequencies.
+	 */
+	public Postings intersect(Postings other) {
+		Postings shorter = this.size() <= other.size() ? this : other;
+		Postings longer = shorter == this ? other : this;
+
+		int[] result = new int[shorter.size()];
+		int[] resultFrequencies = new int[shorter.size()];
+		int size = 0;
+		int position = 0;
+		for(int i = 0; i < shorter.size() && position < longer.size(); i++){
+			int docID = shorter.docIDs[i];
+			position = longer.advance(position, docID);
+			if(position < longer.size() && longer.docIDs[position] == docID){
+				result[size] = docID;
+				resultFrequencies[size] = shorter.frequencies[i] + longer.frequencies[position];
+				size++;
+				position++;
+			}
+		}
+		if(size < result.length){
+			result = Arrays.copyOf(result, size);
+			resultFrequencies = Arrays.copyOf(resultFrequencies, size);
+		}
+		return new Postings(result, resultFrequencies);
+	}
+
+	/**
+	 * @return a copy of the doc IDs.
+	 */
+	public int[] toArray() {
+		return this.docIDs.clone();
+	}
+
+	/**
+	 * @return the doc IDs as a new list.
+	 */
+	public List<Integer> toList() {
+		List<Integer> list = new ArrayList<Integer>(this.docIDs.length);
+		for(int docID : this.docIDs){
+			list.add(docID);
+		}
+		return list;
+	}
+
+	/**
+	 * The postings never change, so the view can be shared between threads without copying the doc IDs.
+	 * @return a read-only list view of the doc IDs.
+	 */
+	public List<Integer> asList() {
+		return new AbstractList<Integer>() {
+			@Override
+			public Integer get(int index) {
+				return docIDs[index];
+			}
+
+			@Override
+			public int size() {
+				return docIDs.length;
+			}
+		};
+	}
+
+	/**
+	 * @return a copy of the frequencies.
+	 */
+	public int[] frequenciesToArray() {
+		return this.frequencies.clone();
+	}
+
+	/**
+	 * The array is shared with the postings and must not be changed.
+	 * @return the doc IDs
+	 */
+	int[] docIDs() {
+		return this.docIDs;
+	}
+
+	/**
+	 * The array is shared with the postings and must not be changed.
+	 * @return the frequencies
+	 */
+	int[] frequencies() {
+		return this.frequencies;
+	}
+
+	@Override
+	public String toString() {
+		return Arrays.toString(this.docIDs);
+	}
+}
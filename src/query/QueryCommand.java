@@ -1,108 +1,359 @@
 package query;
 
+import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
-import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
+import indexing.DocumentLengths;
+import indexing.PostingsList;
+import indexing.PostingsMerge;
+
+/**
+ * Runs the queries on an IndexSnapshot. The snapshot is immutable and it is swapped atomically
+ * when a new dictionary is set, so one QueryCommand can be shared by several threads: every query
+ * reads the current snapshot once and runs on it without any lock. The results are read-only.
+ */
 public class QueryCommand {
 	
 	
-	private Map<String,List<Integer>> dictionary;
+	private volatile Map<String,PostingsList> dictionary;
+	private volatile DocumentLengths documentLengths;
+	//the index the queries run on
+	private volatile IndexSnapshot index;
+	
+	//results of the recent queries, keyed on the normalized query
+	private volatile QueryResultCache resultCache = new QueryResultCache();
+	
+	private static final Postings EMPTY_POSTINGS = new Postings(new int[0], new int[0]);
 	
 	/**
 	 * basic access to get the dictionary
-	 * @return
+	 * @return the dictionary given to setDictionary, the queries only use the snapshot built from it. null on a mapped index
 	 */
-	public Map<String, List<Integer>> getDictionary() {
+	public Map<String, PostingsList> getDictionary() {
 		return dictionary;
 	}
 
 	/**
-	 * setter for the dictionary
+	 * setter for the dictionary, a new snapshot of it is built for the queries
 	 * @param dictionary
 	 */
-	public void setDictionary(Map<String, List<Integer>> dictionary) {
+	public void setDictionary(Map<String, PostingsList> dictionary) {
 		this.dictionary = dictionary;
+		this.setIndex(IndexSnapshot.of(dictionary, this.documentLengths));
+	}
+	
+	public DocumentLengths getDocumentLengths() {
+		return documentLengths;
+	}
+	
+	/**
+	 * setter for the document lengths and collection statistics, needed by the ranked queries
+	 * @param documentLengths
+	 */
+	public void setDocumentLengths(DocumentLengths documentLengths) {
+		this.documentLengths = documentLengths;
+		IndexSnapshot current = this.index;
+		if(current != null){
+			this.setIndex(current.withDocumentLengths(documentLengths));
+		}
+	}
+	
+	/**
+	 * Memory maps the index written by the merge, the queries run on it without loading it on the heap.
+	 * The document lengths that are already set are used for the ranked queries.
+	 * @param termsFileName
+	 * @param postingsFileName
+	 * @throws IOException if the files are missing or are not index files
+	 */
+	public void openIndex(String termsFileName, String postingsFileName) throws IOException {
+		this.dictionary = null;
+		this.setIndex(IndexSnapshot.of(MappedIndex.open(termsFileName, postingsFileName), this.documentLengths));
+	}
+	
+	public IndexSnapshot getIndex() {
+		return index;
+	}
+	
+	/**
+	 * Installs a new index, the queries that are running finish on the previous one.
+	 * A snapshot can be shared by several QueryCommands.
+	 * @param index
+	 */
+	public void setIndex(IndexSnapshot index) {
+		this.index = index;
+		//the cached results belong to the previous index
+		this.resultCache.clear();
+	}
+	
+	public QueryResultCache getResultCache() {
+		return resultCache;
+	}
+	
+	/**
+	 * setter for the result cache, new QueryResultCache(0) to not cache the results
+	 * @param resultCache
+	 */
+	public void setResultCache(QueryResultCache resultCache) {
+		this.resultCache = resultCache;
 	}
 
 	/**
 	 * Performs a single keyword query
 	 * @param query the keyword query, needs to be in "keyword" format
-	 * @return List<Integer> the result postings , with duplicate postings removed.
+	 * @return List<Integer> the result postings, read-only. Empty if the term is not in the dictionary.
 	 */
 	public List<Integer> performKeywordQuery(String query){
-		List<Integer> results = null;
-		
-		results = this.dictionary.get(query.toLowerCase());
-		
-		//removing duplicates
-		if(results!=null) {
-			List<Integer> noDuplicatesResults = new ArrayList<>(new LinkedHashSet<>(results));	
-			return noDuplicatesResults;
-		}else return results;
-			   
-		
+		IndexSnapshot index = this.index;
+		String term = query.toLowerCase();
+		return this.cached(index, "keyword\0" + term, () -> {
+			Postings results = index.getPostings(term);
+			return results != null ? results.asList() : Collections.<Integer>emptyList();
+		});
 	}
 	
 	/**
 	 * Perfoms an AND query
 	 * @param query --> needs to be in "term1 AND term2 AND term3.." format
-	 * @return List<Integer> the result postings, with duplicate postings removed.
+	 * @return List<Integer> the result postings, read-only. Empty if a term is not in the dictionary.
 	 */
 	public List<Integer> performAndQuery(String query){
-		List<Integer> results = null;
-		
-		//intersecting the results, giving the union
-		
-		String [] queryTerms = query.split(" AND ");
+		IndexSnapshot index = this.index;
+		//the terms of an intersection can be in any order and repeated
+		String key = cacheKey("and", query.split(" AND "), true);
+		return this.cached(index, key, () -> executeAndQuery(index, planAndQuery(index, query)).asList());
+	}
+	
+
+	/**
+	 * Perfoms an OR query
+	 * @param query --> needs to be in "term1 OR term2 OR term3.." format
+	 * @return List<Integer> the result postings, ordered by term frequency, read-only. Empty if no term is in the dictionary.
+	 */
+	public List<Integer> performOrQuery(String query){
+		IndexSnapshot index = this.index;
+		//a repeated term counts its frequencies twice, so it is kept in the key
+		String key = cacheKey("or", query.split(" OR "), false);
+		return this.cached(index, key, () -> executeOrQuery(index, planOrQuery(index, query)));
+	}
+	
+	/**
+	 * Performs a boolean query, with AND, OR, NOT and parentheses, see QueryParser.
+	 * The query is compiled to a tree of doc ID iterators and the results are produced in a single pass over them.
+	 * @param query --> for example "(term1 OR term2) AND NOT term3"
+	 * @return List<Integer> the result postings in doc ID order, read-only.
+	 * @throws IllegalArgumentException if the query is not well formed
+	 */
+	public List<Integer> performBooleanQuery(String query){
+		IndexSnapshot index = this.index;
+		QueryNode node = QueryParser.parse(query);
+		return this.cached(index, "boolean\0" + node, () -> {
+			DocIDIterator iterator = node.iterator(index);
+			int[] results = new int[(int) Math.min(iterator.cost(), Integer.MAX_VALUE - 8)];
+			int size = 0;
+			for(int docID = iterator.next(); docID != DocIDIterator.NO_MORE_DOCS; docID = iterator.next()){
+				results[size++] = docID;
+			}
+			return new Postings(Arrays.copyOf(results, size), new int[size]).asList();
+		});
+	}
+	
+	/**
+	 * Compiles a boolean query to its doc ID iterator, to go through the results without collecting them.
+	 * @param query --> for example "(term1 OR term2) AND NOT term3"
+	 * @return the iterator, positioned before the first result
+	 * @throws IllegalArgumentException if the query is not well formed
+	 */
+	public DocIDIterator booleanQueryIterator(String query){
+		return QueryParser.parse(query).iterator(this.index);
+	}
+	
+	/**
+	 * Performs a ranked query, the documents containing any of the terms are scored with BM25.
+	 * Only the k best documents are kept, the documents that can not reach them are skipped.
+	 * @param query --> needs to be in "term1 term2 term3.." format, the terms that are not in the dictionary are ignored
+	 * @param k number of documents to return
+	 * @return List<ScoredDocument> the k best documents, from the best score to the worst, read-only.
+	 * @throws IllegalStateException if the document lengths were not set
+	 */
+	public List<ScoredDocument> performRankedQuery(String query, int k){
+		IndexSnapshot index = this.index;
+		if(index == null || !index.isRanked()){
+			throw new IllegalStateException("the document lengths are needed to rank the results");
+		}
 		
+		String[] terms = query.trim().split("\\s+");
+		return this.cached(index, cacheKey("ranked " + k, terms, true), () -> executeRankedQuery(index, terms, k));
+	}
+	
+	private static List<ScoredDocument> executeRankedQuery(IndexSnapshot index, String[] terms, int k){
+		Set<String> queryTerms = new LinkedHashSet<String>();
+		for(String term : terms){
+			if(!term.isEmpty()){
+				queryTerms.add(term.toLowerCase());
+			}
+		}
 		
-		for (int i = 0; i < queryTerms.length; i++) {
-			queryTerms[i] = queryTerms[i].toLowerCase();
-			if(results == null){
-				results = this.dictionary.get(queryTerms[i]);
-			}else if(this.dictionary.get(queryTerms[i]) != null){
-				results = intersection(results,this.dictionary.get(queryTerms[i]));
+		List<Postings> termPostings = new ArrayList<Postings>();
+		List<Double> termMaxScores = new ArrayList<Double>();
+		for(String term : queryTerms){
+			Postings postings = index.getPostings(term);
+			if(postings != null){
+				termPostings.add(postings);
+				termMaxScores.add(index.getMaxScore(term));
 			}
-			
 		}
 		
-		//removing duplicates
-				if(results!=null) {
-					List<Integer> noDuplicatesResults = new ArrayList<>(new LinkedHashSet<>(results));	
-					return noDuplicatesResults;
-				}else return results;
-					   
+		double[] bounds = new double[termMaxScores.size()];
+		for(int i = 0; i < bounds.length; i++){
+			bounds[i] = termMaxScores.get(i);
+		}
+		return index.getBM25().topK(termPostings.toArray(new Postings[0]), bounds, k);
 	}
 	
-
 	/**
-	 * Perfoms an OR query
-	 * @param query --> needs to be in "term1 OR term2 OR term3.." format
-	 * @return List<Integer> the result postings, ordered by term frequency.
+	 * Returns the cached result of a query, or runs it and caches its result.
+	 * @param index the snapshot the query runs on
+	 * @param key the normalized query
+	 * @param query computes the result on a cache miss
+	 * @return the result, read-only.
 	 */
-	public List<Integer> performOrQuery(String query){
-		List<Integer> results = null;
+	@SuppressWarnings("unchecked")
+	private <T> List<T> cached(IndexSnapshot index, String key, Supplier<List<T>> query){
+		QueryResultCache resultCache = this.resultCache;
+		QueryResultCache.Entry entry = resultCache.get(key, index.getVersion());
+		if(entry != null){
+			return (List<T>) entry.getResults();
+		}
+		return resultCache.put(key, index.getVersion(), query.get());
+	}
+	
+	/**
+	 * The normalized form of a query: its type and its lower case terms in sorted order,
+	 * so the queries that only differ by the order of their terms have the same key.
+	 * @param type the kind of query, with its parameters
+	 * @param terms the terms of the query
+	 * @param distinct true if repeating a term does not change the result
+	 * @return the cache key
+	 */
+	private static String cacheKey(String type, String[] terms, boolean distinct){
+		String[] normalized = new String[terms.length];
+		for(int i = 0; i < terms.length; i++){
+			normalized[i] = terms[i].toLowerCase();
+		}
+		Arrays.sort(normalized);
 		
-		//just a union of the results
-		String [] queryTerms = query.split(" OR ");
+		StringBuilder key = new StringBuilder(type);
+		for(int i = 0; i < normalized.length; i++){
+			if(distinct && i > 0 && normalized[i].equals(normalized[i - 1])){
+				continue;
+			}
+			//the terms can contain spaces, so they are separated by a character that is never in a query
+			key.append('\0').append(normalized[i]);
+		}
+		return key.toString();
+	}
+	
+	/**
+	 * Runs a query and shows how it was evaluated: the order of the terms, their document frequency
+	 * and the size of the intermediate results.
+	 * @param query a keyword, "term1 AND term2.." or "term1 OR term2.." query
+	 * @return the plan of the query, after it ran
+	 */
+	public QueryPlan explain(String query){
+		IndexSnapshot index = this.index;
+		if(query.contains(" OR ")){
+			QueryPlan plan = planOrQuery(index, query);
+			executeOrQuery(index, plan);
+			return plan;
+		}
+		//a keyword query is an AND query with one term
+		QueryPlan plan = planAndQuery(index, query);
+		executeAndQuery(index, plan);
+		return plan;
+	}
+	
+	//the terms are intersected from the rarest to the most common
+	private static QueryPlan planAndQuery(IndexSnapshot index, String query){
+		QueryPlan plan = new QueryPlan(QueryPlan.Operator.AND);
+		for(String term : query.split(" AND ")){
+			term = term.toLowerCase();
+			plan.addStep(term, index.getDocumentFrequency(term));
+		}
+		plan.sortByDocumentFrequency();
+		return plan;
+	}
+	
+	private static Postings executeAndQuery(IndexSnapshot index, QueryPlan plan){
+		Postings results = null;
+		for(QueryPlan.Step step : plan.getSteps()){
+			Postings termPostings = index.getPostings(step.getTerm());
+			//a missing term or an empty intersection can only give an empty result
+			if(termPostings == null){
+				results = EMPTY_POSTINGS;
+			}else{
+				results = results == null ? termPostings : results.intersect(termPostings);
+			}
+			step.setResultSize(results.size());
+			if(results.size() == 0){
+				break;
+			}
+		}
+		if(results == null){
+			results = EMPTY_POSTINGS;
+		}
+		plan.setResultSize(results.size());
+		return results;
+	}
+	
+	private static QueryPlan planOrQuery(IndexSnapshot index, String query){
+		QueryPlan plan = new QueryPlan(QueryPlan.Operator.OR);
+		for(String term : query.split(" OR ")){
+			term = term.toLowerCase();
+			plan.addStep(term, index.getDocumentFrequency(term));
+		}
+		return plan;
+	}
+	
+	private static List<Integer> executeOrQuery(IndexSnapshot index, QueryPlan plan){
 		
+		//just a union of the results, done in one n-way merge that adds up the frequencies of each document
+		List<QueryPlan.Step> steps = plan.getSteps();
+		int[][] lists = new int[steps.size()][];
+		int[][] frequencies = new int[steps.size()][];
+		int[] lengths = new int[steps.size()];
+		int count = 0;
+		int total = 0;
 		
-		for (int i = 0; i < queryTerms.length; i++) {
-			queryTerms[i] = queryTerms[i].toLowerCase();			
-			if(results == null && this.dictionary.get(queryTerms[i])!=null){
-				results = this.dictionary.get(queryTerms[i]);
-			}else if(this.dictionary.get(queryTerms[i]) != null){
-				results = union(results,this.dictionary.get(queryTerms[i]));
+		for(QueryPlan.Step step : steps){
+			Postings termPostings = index.getPostings(step.getTerm());
+			if(termPostings != null){
+				lists[count] = termPostings.docIDs();
+				frequencies[count] = termPostings.frequencies();
+				lengths[count] = termPostings.size();
+				total += lengths[count];
+				count++;
 			}
 			
 		}
-		List<Integer> sortedPostings = sortByTermFrequency(results);
+		if(count == 0){
+			plan.setResultSize(0);
+			return Collections.emptyList();
+		}
+		
+		int[] merged = new int[total];
+		int[] mergedFrequencies = new int[total];
+		int length = PostingsMerge.mergeAll(lists, frequencies, lengths, count, merged, mergedFrequencies);
+		
+		List<Integer> sortedPostings = sortByTermFrequency(merged, mergedFrequencies, length);
+		plan.setResultSize(sortedPostings.size());
 
 		return sortedPostings;	
 	}
@@ -123,58 +374,36 @@ public class QueryCommand {
     }
 
 	/**
-	 * Basic intersection algorithm
-	 * @param list1
-	 * @param list2
-	 * @return union of list1 and list2
+	 * Intersection of two sorted postings lists
+	 * @param list1 sorted doc IDs
+	 * @param list2 sorted doc IDs
+	 * @return the distinct doc IDs in list1 and list2
 	 */
     public List<Integer> intersection(List<Integer> list1, List<Integer> list2) {
-        List<Integer> list = new ArrayList<Integer>();
-
-        for (Integer t : list1) {
-            if(list2.contains(t)) {
-                list.add(t);
-            }
-        }
-
-        return list;
+        return Postings.fromDocIDs(list1).intersect(Postings.fromDocIDs(list2)).toList();
     }
 	
     /**
      * Sorts result by term frequency. The postings list will start with the document in which the queried term will appear the most.
-     * @param postingsList the postings list containing the duplicate document id's
+     * Documents with the same frequency are kept in doc ID order.
+     * @param docIDs the distinct document id's
+     * @param frequencies the term frequency of each document
+     * @param length number of documents
      * @return the sorted postings list by term frequency
      */
-	public static List<Integer> sortByTermFrequency(List<Integer> postingsList){
+	public static List<Integer> sortByTermFrequency(int[] docIDs, int[] frequencies, int length){
 		
-		List<Integer> sortedPostings = new ArrayList<Integer>();
-
-		Map<Integer,Integer> postingCountMap = new LinkedHashMap<Integer,Integer>();
-
-		for(Integer posting : postingsList){
-			Integer count = postingCountMap.get(posting);
-			if(count == null){
-				count = 1;
-				postingCountMap.put(posting,count);
-			}else{
-				count++;
-				postingCountMap.put(posting,count);
-			}
-
+		//biggest frequency in the high half, the doc ID in the low half
+		long[] keys = new long[length];
+		for(int i = 0; i < length; i++){
+			keys[i] = ((long) -frequencies[i] << 32) | docIDs[i];
 		}
+		Arrays.sort(keys);
 
-		//sort by biggest count
-		Map<Integer,Integer> sorted =
-			    postingCountMap.entrySet().stream()
-			       .sorted(Map.Entry.comparingByValue()).collect(Collectors.toMap(e -> e.getKey(),
-                                           e -> e.getValue()));
-		
-		
-
-		Set<Integer> postings = sorted.keySet();
-
-		//convert postings to list<integer>
-		sortedPostings.addAll(postings);
+		List<Integer> sortedPostings = new ArrayList<Integer>(length);
+		for(long key : keys){
+			sortedPostings.add((int) key);
+		}
 		
 		return sortedPostings;
 	}
@@ -0,0 +1,193 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Node of the tree of a boolean query, built by QueryParser.
+ * A tree is compiled to DocIDIterators on an index, which produce the matching doc IDs one at a time.
+ * toString() gives the query back in a normalized form, with every group in parentheses.
+ */
+public abstract class QueryNode {
+
+	private static final Postings NO_POSTINGS = new Postings(new int[0], new int[0]);
+
+	/**
+	 * @param index the index the query runs on
+	 * @return the iterator over the doc IDs matching this node.
+	 */
+	public abstract DocIDIterator iterator(IndexSnapshot index);
+
+	/**
+	 * A single term.
+	 */
+	public static class Term extends QueryNode {
+		private final String term;
+
+		public Term(String term) {
+			this.term = term;
+		}
+
+		public String getTerm() {
+			return term;
+		}
+
+		@Override
+		public DocIDIterator iterator(IndexSnapshot index) {
+			Postings postings = index.getPostings(this.term);
+			return new TermIterator(postings != null ? postings : NO_POSTINGS);
+		}
+
+		@Override
+		public String toString() {
+			return term;
+		}
+	}
+
+	/**
+	 * All the terms starting with a prefix, "oil*" matches oil, oils, oilfield...
+	 */
+	public static class Prefix extends QueryNode {
+		private final String prefix;
+
+		public Prefix(String prefix) {
+			this.prefix = prefix;
+		}
+
+		public String getPrefix() {
+			return prefix;
+		}
+
+		@Override
+		public DocIDIterator iterator(IndexSnapshot index) {
+			List<DocIDIterator> iterators = new ArrayList<DocIDIterator>();
+			for(String term : index.getTermsWithPrefix(this.prefix)){
+				iterators.add(new TermIterator(index.getPostings(term)));
+			}
+			if(iterators.isEmpty()){
+				return new TermIterator(NO_POSTINGS);
+			}
+			return iterators.size() == 1 ? iterators.get(0) : new OrIterator(iterators);
+		}
+
+		@Override
+		public String toString() {
+			return prefix + "*";
+		}
+	}
+
+	/**
+	 * Documents matching all the children. The NOT children are excluded from the others,
+	 * so "a AND NOT b" never goes through all the documents.
+	 */
+	public static class And extends QueryNode {
+		private final List<QueryNode> children;
+
+		public And(List<QueryNode> children) {
+			this.children = Collections.unmodifiableList(new ArrayList<QueryNode>(children));
+		}
+
+		public List<QueryNode> getChildren() {
+			return children;
+		}
+
+		@Override
+		public DocIDIterator iterator(IndexSnapshot index) {
+			List<DocIDIterator> included = new ArrayList<DocIDIterator>();
+			List<DocIDIterator> excluded = new ArrayList<DocIDIterator>();
+			for(QueryNode child : this.children){
+				if(child instanceof Not){
+					excluded.add(((Not) child).getChild().iterator(index));
+				}else{
+					included.add(child.iterator(index));
+				}
+			}
+
+			//only NOT children, they are excluded from all the documents
+			DocIDIterator iterator;
+			if(included.isEmpty()){
+				iterator = new TermIterator(index.getAllDocuments());
+			}else{
+				iterator = included.size() == 1 ? included.get(0) : new AndIterator(included);
+			}
+			if(excluded.isEmpty()){
+				return iterator;
+			}
+			return new AndNotIterator(iterator, excluded.size() == 1 ? excluded.get(0) : new OrIterator(excluded));
+		}
+
+		@Override
+		public String toString() {
+			return join(this.children, " AND ");
+		}
+	}
+
+	/**
+	 * Documents matching any of the children.
+	 */
+	public static class Or extends QueryNode {
+		private final List<QueryNode> children;
+
+		public Or(List<QueryNode> children) {
+			this.children = Collections.unmodifiableList(new ArrayList<QueryNode>(children));
+		}
+
+		public List<QueryNode> getChildren() {
+			return children;
+		}
+
+		@Override
+		public DocIDIterator iterator(IndexSnapshot index) {
+			if(this.children.size() == 1){
+				return this.children.get(0).iterator(index);
+			}
+			List<DocIDIterator> iterators = new ArrayList<DocIDIterator>();
+			for(QueryNode child : this.children){
+				iterators.add(child.iterator(index));
+			}
+			return new OrIterator(iterators);
+		}
+
+		@Override
+		public String toString() {
+			return join(this.children, " OR ");
+		}
+	}
+
+	/**
+	 * Documents that do not match the child.
+	 */
+	public static class Not extends QueryNode {
+		private final QueryNode child;
+
+		public Not(QueryNode child) {
+			this.child = child;
+		}
+
+		public QueryNode getChild() {
+			return child;
+		}
+
+		@Override
+		public DocIDIterator iterator(IndexSnapshot index) {
+			return new AndNotIterator(new TermIterator(index.getAllDocuments()), this.child.iterator(index));
+		}
+
+		@Override
+		public String toString() {
+			return "NOT " + child;
+		}
+	}
+
+	private static String join(List<QueryNode> children, String operator) {
+		StringBuilder query = new StringBuilder("(");
+		for(int i = 0; i < children.size(); i++){
+			if(i > 0){
+				query.append(operator);
+			}
+			query.append(children.get(i));
+		}
+		return query.append(')').toString();
+	}
+}
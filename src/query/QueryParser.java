@@ -0,0 +1,146 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Parser of boolean queries, with AND, OR, NOT and parentheses:
+ *
+ * query   : and (OR and)*
+ * and     : not (AND? not)*
+ * not     : NOT not | primary
+ * primary : ( query ) | term | prefix*
+ *
+ * NOT binds tighter than AND, and AND tighter than OR, two terms next to each other are an AND.
+ * The operators are upper case, so "and", "or" and "not" are still searched as terms.
+ * The terms are lower cased like the other queries. A term ending with * matches every term starting with it.
+ */
+public class QueryParser {
+
+	private static final String AND = "AND";
+	private static final String OR = "OR";
+	private static final String NOT = "NOT";
+
+	private final List<String> tokens;
+	private int position;
+
+	private QueryParser(List<String> tokens) {
+		this.tokens = tokens;
+	}
+
+	/**
+	 * @param query a boolean query like "(oil OR gas) AND NOT opec"
+	 * @return the tree of the query
+	 * @throws IllegalArgumentException if the query is not well formed
+	 */
+	public static QueryNode parse(String query) {
+		QueryParser parser = new QueryParser(tokenize(query));
+		if(parser.tokens.isEmpty()){
+			throw new IllegalArgumentException("the query is empty");
+		}
+		QueryNode node = parser.parseOr();
+		if(parser.position < parser.tokens.size()){
+			throw new IllegalArgumentException("unexpected '" + parser.tokens.get(parser.position) + "' at token " + (parser.position + 1));
+		}
+		return node;
+	}
+
+	private QueryNode parseOr() {
+		List<QueryNode> children = new ArrayList<QueryNode>();
+		children.add(this.parseAnd());
+		while(this.accept(OR)){
+			children.add(this.parseAnd());
+		}
+		return children.size() == 1 ? children.get(0) : new QueryNode.Or(children);
+	}
+
+	private QueryNode parseAnd() {
+		List<QueryNode> children = new ArrayList<QueryNode>();
+		children.add(this.parseNot());
+		while(true){
+			if(this.accept(AND)){
+				children.add(this.parseNot());
+			}else if(this.startsOperand()){
+				children.add(this.parseNot());
+			}else{
+				break;
+			}
+		}
+		return children.size() == 1 ? children.get(0) : new QueryNode.And(children);
+	}
+
+	private QueryNode parseNot() {
+		if(this.accept(NOT)){
+			return new QueryNode.Not(this.parseNot());
+		}
+		return this.parsePrimary();
+	}
+
+	private QueryNode parsePrimary() {
+		if(this.position >= this.tokens.size()){
+			throw new IllegalArgumentException("a term is missing at the end of the query");
+		}
+		String token = this.tokens.get(this.position);
+		if(token.equals("(")){
+			this.position++;
+			QueryNode node = this.parseOr();
+			if(!this.accept(")")){
+				throw new IllegalArgumentException("missing ')' at token " + (this.position + 1));
+			}
+			return node;
+		}
+		if(token.equals(")") || token.equals(AND) || token.equals(OR)){
+			throw new IllegalArgumentException("unexpected '" + token + "' at token " + (this.position + 1));
+		}
+		this.position++;
+		if(token.endsWith("*")){
+			String prefix = token.substring(0, token.length() - 1);
+			if(prefix.isEmpty() || prefix.contains("*")){
+				throw new IllegalArgumentException("'" + token + "' is not a prefix at token " + this.position);
+			}
+			return new QueryNode.Prefix(prefix.toLowerCase());
+		}
+		return new QueryNode.Term(token.toLowerCase());
+	}
+
+	//a term, NOT or ( can start the next operand of an implicit AND
+	private boolean startsOperand() {
+		if(this.position >= this.tokens.size()){
+			return false;
+		}
+		String token = this.tokens.get(this.position);
+		return !token.equals(")") && !token.equals(AND) && !token.equals(OR);
+	}
+
+	private boolean accept(String token) {
+		if(this.position < this.tokens.size() && this.tokens.get(this.position).equals(token)){
+			this.position++;
+			return true;
+		}
+		return false;
+	}
+
+	//the parentheses are tokens on their own, whitespace separates the others
+	private static List<String> tokenize(String query) {
+		List<String> tokens = new ArrayList<String>();
+		StringBuilder token = new StringBuilder();
+		for(int i = 0; i < query.length(); i++){
+			char c = query.charAt(i);
+			if(c == '(' || c == ')' || Character.isWhitespace(c)){
+				if(token.length() > 0){
+					tokens.add(token.toString());
+					token.setLength(0);
+				}
+				if(!Character.isWhitespace(c)){
+					tokens.add(String.valueOf(c));
+				}
+			}else{
+				token.append(c);
+			}
+		}
+		if(token.length() > 0){
+			tokens.add(token.toString());
+		}
+		return tokens;
+	}
+}
@@ -0,0 +1,111 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The order in which the terms of a query are evaluated, with the document frequency of each term
+ * and the size of the result after each step once the query ran.
+ * toString() prints it like an EXPLAIN, to see what the planner chose.
+ */
+public class QueryPlan {
+
+	public enum Operator { AND, OR }
+
+	//size of a step that was not evaluated
+	public static final int NOT_EVALUATED = -1;
+
+	/**
+	 * One term of the plan.
+	 */
+	public static class Step {
+		private final String term;
+		private final int documentFrequency;
+		private int resultSize = NOT_EVALUATED;
+
+		Step(String term, int documentFrequency) {
+			this.term = term;
+			this.documentFrequency = documentFrequency;
+		}
+
+		public String getTerm() {
+			return term;
+		}
+
+		/**
+		 * @return the number of documents containing the term, 0 if it is not in the dictionary.
+		 */
+		public int getDocumentFrequency() {
+			return documentFrequency;
+		}
+
+		/**
+		 * @return the size of the intermediate result after this step, NOT_EVALUATED if the query stopped before it.
+		 */
+		public int getResultSize() {
+			return resultSize;
+		}
+
+		void setResultSize(int resultSize) {
+			this.resultSize = resultSize;
+		}
+	}
+
+	private final Operator operator;
+	private final List<Step> steps = new ArrayList<Step>();
+	private int resultSize = NOT_EVALUATED;
+
+	QueryPlan(Operator operator) {
+		this.operator = operator;
+	}
+
+	void addStep(String term, int documentFrequency) {
+		this.steps.add(new Step(term, documentFrequency));
+	}
+
+	//AND queries start with the rarest term, the intermediate result can only get smaller
+	void sortByDocumentFrequency() {
+		this.steps.sort((a, b) -> Integer.compare(a.documentFrequency, b.documentFrequency));
+	}
+
+	public Operator getOperator() {
+		return operator;
+	}
+
+	/**
+	 * @return the steps, in the order they are evaluated.
+	 */
+	public List<Step> getSteps() {
+		return Collections.unmodifiableList(steps);
+	}
+
+	/**
+	 * @return the number of documents found, NOT_EVALUATED if the query did not run.
+	 */
+	public int getResultSize() {
+		return resultSize;
+	}
+
+	void setResultSize(int resultSize) {
+		this.resultSize = resultSize;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder explain = new StringBuilder();
+		explain.append(this.operator).append(" query, ").append(this.steps.size()).append(" terms\n");
+		int i = 1;
+		for(Step step : this.steps){
+			explain.append("  ").append(i++).append(". ").append(step.term).append(" df=").append(step.documentFrequency);
+			if(this.operator == Operator.AND){
+				explain.append(" -> ");
+				explain.append(step.resultSize == NOT_EVALUATED ? "not evaluated" : String.valueOf(step.resultSize));
+			}
+			explain.append('\n');
+		}
+		explain.append("  result: ");
+		explain.append(this.resultSize == NOT_EVALUATED ? "not evaluated" : this.resultSize + " documents");
+		return explain.toString();
+	}
+}
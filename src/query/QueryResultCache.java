@@ -0,0 +1,213 @@
+package query;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Least recently used cache of query results, bounded by the estimated heap size of the results.
+ * The keys are normalized queries, so the same query written differently is only computed once.
+ * When a new result does not fit, the least recently used ones are evicted until it does.
+ * The results are kept as read-only lists, so a caller can not change what the next one gets.
+ *
+ * The cache is split in segments by the hash of the key, each one with its own lock and its own
+ * share of the size, so the query threads rarely wait for each other. Every result is tagged with the
+ * version of the index it was computed on, a result of another index is a miss.
+ */
+public class QueryResultCache {
+
+	public static final long DEFAULT_MAX_BYTES = 16L << 20;
+
+	//ArrayList object, its array header, and the map entry holding it
+	private static final int ENTRY_BYTES = 24 + 16 + 64;
+	//String object and the header of its byte array
+	private static final int STRING_BYTES = 24 + 16;
+	//array slot and Integer object of a doc ID, or a ScoredDocument
+	private static final int RESULT_BYTES = 4 + 16;
+	private static final int SCORED_RESULT_BYTES = 4 + 24;
+
+	private static final int SEGMENTS = 16;
+
+	/**
+	 * A cached result, empty when the query had no result.
+	 */
+	public static final class Entry {
+		private final List<?> results;
+		private final long version;
+		private final long bytes;
+
+		private Entry(List<?> results, long version, long bytes) {
+			this.results = results;
+			this.version = version;
+			this.bytes = bytes;
+		}
+
+		public List<?> getResults() {
+			return results;
+		}
+	}
+
+	//a least recently used map with its share of the size
+	private static final class Segment {
+		private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+		private long usedBytes;
+	}
+
+	private final long maxBytes;
+	private final long segmentMaxBytes;
+	private final Segment[] segments = new Segment[SEGMENTS];
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder invalidations = new LongAdder();
+
+	public QueryResultCache() {
+		this(DEFAULT_MAX_BYTES);
+	}
+
+	/**
+	 * @param maxBytes estimated heap size the results can take, 0 to cache nothing
+	 */
+	public QueryResultCache(long maxBytes) {
+		this.maxBytes = Math.max(0, maxBytes);
+		this.segmentMaxBytes = this.maxBytes / SEGMENTS;
+		for(int i = 0; i < SEGMENTS; i++){
+			this.segments[i] = new Segment();
+		}
+	}
+
+	/**
+	 * @param key the normalized query
+	 * @param version of the index the query runs on
+	 * @return the cached result, null if the query is not in the cache for this index.
+	 */
+	public Entry get(String key, long version) {
+		Segment segment = this.segment(key);
+		Entry entry;
+		synchronized(segment){
+			entry = segment.entries.get(key);
+		}
+		if(entry != null && entry.version == version){
+			this.hits.increment();
+			return entry;
+		}
+		this.misses.increment();
+		return null;
+	}
+
+	/**
+	 * Caches the result of a query, evicting the least recently used results if it does not fit.
+	 * A result bigger than a segment of the cache is not kept.
+	 * @param key the normalized query
+	 * @param version of the index the result was computed on
+	 * @param results the result, empty if the query had no result
+	 * @return the result as it is cached, a read-only view of results.
+	 */
+	public <T> List<T> put(String key, long version, List<T> results) {
+		List<T> readOnly = Collections.unmodifiableList(results);
+		long bytes = estimateBytes(key, results);
+		if(bytes > this.segmentMaxBytes){
+			return readOnly;
+		}
+
+		Segment segment = this.segment(key);
+		synchronized(segment){
+			Entry previous = segment.entries.put(key, new Entry(readOnly, version, bytes));
+			if(previous != null){
+				segment.usedBytes -= previous.bytes;
+			}
+			segment.usedBytes += bytes;
+
+			Iterator<Map.Entry<String, Entry>> eldest = segment.entries.entrySet().iterator();
+			while(segment.usedBytes > this.segmentMaxBytes && eldest.hasNext()){
+				Entry evicted = eldest.next().getValue();
+				eldest.remove();
+				segment.usedBytes -= evicted.bytes;
+				this.evictions.increment();
+			}
+		}
+		return readOnly;
+	}
+
+	/**
+	 * Drops every result, when the index they were computed on is replaced.
+	 */
+	public void clear() {
+		boolean cleared = false;
+		for(Segment segment : this.segments){
+			synchronized(segment){
+				cleared |= !segment.entries.isEmpty();
+				segment.entries.clear();
+				segment.usedBytes = 0;
+			}
+		}
+		if(cleared){
+			this.invalidations.increment();
+		}
+	}
+
+	public long getMaxBytes() {
+		return maxBytes;
+	}
+
+	public long getUsedBytes() {
+		long usedBytes = 0;
+		for(Segment segment : this.segments){
+			synchronized(segment){
+				usedBytes += segment.usedBytes;
+			}
+		}
+		return usedBytes;
+	}
+
+	public int size() {
+		int size = 0;
+		for(Segment segment : this.segments){
+			synchronized(segment){
+				size += segment.entries.size();
+			}
+		}
+		return size;
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	public long getInvalidations() {
+		return invalidations.sum();
+	}
+
+	private Segment segment(String key) {
+		int hash = key.hashCode();
+		return this.segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+	}
+
+	//estimated heap size of a cached result and its key
+	private static long estimateBytes(String key, List<?> results) {
+		long bytes = ENTRY_BYTES + STRING_BYTES + key.length();
+		if(!results.isEmpty()){
+			bytes += (long) results.size() * (results.get(0) instanceof ScoredDocument ? SCORED_RESULT_BYTES : RESULT_BYTES);
+		}
+		return bytes;
+	}
+
+	@Override
+	public String toString() {
+		return "entries=" + this.size() + " bytes=" + this.getUsedBytes() + "/" + this.maxBytes
+				+ " hits=" + this.getHits() + " misses=" + this.getMisses() + " evictions=" + this.getEvictions()
+				+ " invalidations=" + this.getInvalidations();
+	}
+}
@@ -0,0 +1,30 @@
+package query;
+
+import java.util.Locale;
+
+/**
+ * A document of a ranked result and its score.
+ */
+public class ScoredDocument {
+
+	private final int docID;
+	private final double score;
+
+	public ScoredDocument(int docID, double score) {
+		this.docID = docID;
+		this.score = score;
+	}
+
+	public int getDocID() {
+		return docID;
+	}
+
+	public double getScore() {
+		return score;
+	}
+
+	@Override
+	public String toString() {
+		return docID + " (" + String.format(Locale.ROOT, "%.4f", score) + ")";
+	}
+}
@@ -0,0 +1,307 @@
+package query;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import indexing.TermDictionaryWriter;
+
+/**
+ * Sorted term dictionary, front coded in blocks, read from the buffer of a file written by TermDictionaryWriter.
+ * The terms are one contiguous array of bytes instead of a String and a map entry each.
+ * A lookup is a binary search on the first term of every block, then a scan of the block,
+ * and the terms can be listed in order from any term, for range and prefix scans.
+ * The buffer is only read with absolute gets, so the dictionary can be shared by several threads.
+ */
+public class TermDictionary {
+
+	/**
+	 * A term with its document frequency and where its postings are.
+	 */
+	public static final class Entry {
+		private final String term;
+		private final int documentFrequency;
+		private final long postingsOffset;
+
+		private Entry(String term, int documentFrequency, long postingsOffset) {
+			this.term = term;
+			this.documentFrequency = documentFrequency;
+			this.postingsOffset = postingsOffset;
+		}
+
+		public String getTerm() {
+			return term;
+		}
+
+		public int getDocumentFrequency() {
+			return documentFrequency;
+		}
+
+		public long getPostingsOffset() {
+			return postingsOffset;
+		}
+	}
+
+	private final ByteBuffer buffer;
+	private final int termCount;
+	private final int blockSize;
+	private final int blockCount;
+	private final int blockIndexOffset;
+	private final int documentCount;
+	private final long allDocumentsOffset;
+
+	/**
+	 * @param buffer the content of a terms file
+	 * @param fileName for the error messages
+	 * @throws IOException if the buffer is not a terms file
+	 */
+	public TermDictionary(ByteBuffer buffer, String fileName) throws IOException {
+		if(buffer.limit() < TermDictionaryWriter.HEADER_SIZE || buffer.getInt(0) != TermDictionaryWriter.MAGIC){
+			throw new IOException(fileName + " is not a terms file");
+		}
+		int version = buffer.getInt(4);
+		if(version != TermDictionaryWriter.VERSION){
+			throw new IOException(fileName + " has unsupported version " + version);
+		}
+		this.buffer = buffer;
+		this.termCount = buffer.getInt(8);
+		this.blockSize = buffer.getInt(12);
+		long blockIndexOffset = buffer.getLong(16);
+		this.documentCount = buffer.getInt(24);
+		this.allDocumentsOffset = buffer.getLong(28);
+
+		this.blockCount = this.blockSize > 0 ? (this.termCount + this.blockSize - 1) / this.blockSize : 0;
+		if(this.blockSize <= 0 || blockIndexOffset + (long) this.blockCount * TermDictionaryWriter.BLOCK_INDEX_ENTRY_SIZE != buffer.limit()){
+			throw new IOException(fileName + " is truncated");
+		}
+		this.blockIndexOffset = (int) blockIndexOffset;
+	}
+
+	public int size() {
+		return termCount;
+	}
+
+	/**
+	 * @return the number of documents of the index.
+	 */
+	public int getDocumentCount() {
+		return documentCount;
+	}
+
+	/**
+	 * @return where the postings of all the documents are in the postings file.
+	 */
+	public long getAllDocumentsOffset() {
+		return allDocumentsOffset;
+	}
+
+	/**
+	 * @param term lower case term
+	 * @return the entry of the term, null if it is not in the dictionary.
+	 */
+	public Entry get(String term) {
+		int block = this.findBlock(term);
+		if(block < 0){
+			return null;
+		}
+		//the terms of the block are compared as bytes, only the one that matches becomes a String
+		byte[] target = term.getBytes(StandardCharsets.UTF_8);
+		BlockCursor cursor = new BlockCursor(block);
+		while(cursor.next()){
+			if(cursor.termLength == target.length && cursor.startsWith(target)){
+				return new Entry(term, cursor.documentFrequency, cursor.postingsOffset);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Lists the terms in sorted order, from the first term >= from to the last term < to.
+	 * @param from first term, null to start at the first term of the dictionary
+	 * @param to end of the range, excluded, null to go to the end of the dictionary
+	 * @return the entries of the terms in the range, decoded as the iterator goes.
+	 */
+	public Iterator<Entry> range(String from, String to) {
+		int block = from != null ? Math.max(0, this.findBlock(from)) : 0;
+		return new RangeIterator(block, from, to, null);
+	}
+
+	/**
+	 * @param prefix
+	 * @return the entries of the terms starting with prefix, in sorted order.
+	 */
+	public Iterator<Entry> prefix(String prefix) {
+		return new RangeIterator(Math.max(0, this.findBlock(prefix)), prefix, null, prefix);
+	}
+
+	//the last block whose first term is <= term, -1 if term is before the first term
+	private int findBlock(String term) {
+		int low = 0;
+		int high = this.blockCount - 1;
+		int found = -1;
+		while(low <= high){
+			int middle = (low + high) >>> 1;
+			if(this.compareFirstTerm(middle, term) <= 0){
+				found = middle;
+				low = middle + 1;
+			}else{
+				high = middle - 1;
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * Compares the first term of a block with a term, in the order of String.compareTo.
+	 * The bytes are compared as chars while they are ASCII, the term is only decoded when they are not.
+	 */
+	private int compareFirstTerm(int block, String term) {
+		//the first term of a block is written in full, after its prefix length of 0 (one byte)
+		int position = this.buffer.getInt(this.blockIndexOffset + block * TermDictionaryWriter.BLOCK_INDEX_ENTRY_SIZE) + 1;
+		int length = 0;
+		for(int shift = 0; ; shift += 7){
+			byte b = this.buffer.get(position++);
+			length |= (b & 0x7F) << shift;
+			if(b >= 0){
+				break;
+			}
+		}
+
+		int common = Math.min(length, term.length());
+		for(int i = 0; i < common; i++){
+			byte b = this.buffer.get(position + i);
+			if(b < 0){
+				BlockCursor cursor = new BlockCursor(block);
+				cursor.next();
+				return cursor.term().compareTo(term);
+			}
+			if(b != term.charAt(i)){
+				return b - term.charAt(i);
+			}
+		}
+		return length - term.length();
+	}
+
+	//decodes the terms of a block one after the other
+	private class BlockCursor {
+		private int position;
+		private int remaining;
+		private byte[] term = new byte[32];
+		private int termLength;
+		private int documentFrequency;
+		private long postingsOffset;
+
+		BlockCursor(int block) {
+			int entry = blockIndexOffset + block * TermDictionaryWriter.BLOCK_INDEX_ENTRY_SIZE;
+			this.position = buffer.getInt(entry);
+			this.postingsOffset = buffer.getLong(entry + 4);
+			this.remaining = Math.min(blockSize, termCount - block * blockSize);
+		}
+
+		boolean next() {
+			if(this.remaining == 0){
+				return false;
+			}
+			this.remaining--;
+
+			int prefix = this.readVInt();
+			int suffix = this.readVInt();
+			this.termLength = prefix + suffix;
+			if(this.termLength > this.term.length){
+				byte[] term = new byte[Math.max(this.termLength, this.term.length * 2)];
+				System.arraycopy(this.term, 0, term, 0, prefix);
+				this.term = term;
+			}
+			for(int i = prefix; i < this.termLength; i++){
+				this.term[i] = buffer.get(this.position++);
+			}
+			this.documentFrequency = this.readVInt();
+			this.postingsOffset += this.readVInt();
+			return true;
+		}
+
+		String term() {
+			return new String(this.term, 0, this.termLength, StandardCharsets.UTF_8);
+		}
+
+		boolean startsWith(byte[] prefix) {
+			if(prefix.length > this.termLength){
+				return false;
+			}
+			for(int i = 0; i < prefix.length; i++){
+				if(this.term[i] != prefix[i]){
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private int readVInt() {
+			int value = 0;
+			for(int shift = 0; ; shift += 7){
+				byte b = buffer.get(this.position++);
+				value |= (b & 0x7F) << shift;
+				if(b >= 0){
+					return value;
+				}
+			}
+		}
+	}
+
+	//the terms from a block on, the ones before from are skipped and the iteration stops at the first one out of the range
+	private class RangeIterator implements Iterator<Entry> {
+		private final String to;
+		private final String prefix;
+		private int block;
+		private BlockCursor cursor;
+		private Entry next;
+
+		RangeIterator(int block, String from, String to, String prefix) {
+			this.to = to;
+			this.prefix = prefix;
+			this.block = block;
+			this.cursor = block < blockCount ? new BlockCursor(block) : null;
+			do {
+				this.next = this.advance();
+			} while(this.next != null && from != null && this.next.getTerm().compareTo(from) < 0);
+			if(this.next != null && !this.inRange(this.next.getTerm())){
+				this.next = null;
+			}
+		}
+
+		private boolean inRange(String term) {
+			return (this.to == null || term.compareTo(this.to) < 0) && (this.prefix == null || term.startsWith(this.prefix));
+		}
+
+		private Entry advance() {
+			while(this.cursor != null && !this.cursor.next()){
+				this.block++;
+				this.cursor = this.block < blockCount ? new BlockCursor(this.block) : null;
+			}
+			if(this.cursor == null){
+				return null;
+			}
+			return new Entry(this.cursor.term(), this.cursor.documentFrequency, this.cursor.postingsOffset);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return this.next != null;
+		}
+
+		@Override
+		public Entry next() {
+			if(this.next == null){
+				throw new NoSuchElementException();
+			}
+			Entry entry = this.next;
+			this.next = this.advance();
+			if(this.next != null && !this.inRange(this.next.getTerm())){
+				this.next = null;
+			}
+			return entry;
+		}
+	}
+}
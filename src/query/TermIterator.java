@@ -0,0 +1,37 @@
+package query;
+
+/**
+ * Doc IDs of the postings of a term, advance() uses the skip pointers of the postings.
+ */
+class TermIterator extends DocIDIterator {
+
+	private final Postings postings;
+	private int position = -1;
+	private int docID = -1;
+
+	TermIterator(Postings postings) {
+		this.postings = postings;
+	}
+
+	@Override
+	public int docID() {
+		return docID;
+	}
+
+	@Override
+	public int next() {
+		this.position++;
+		return this.docID = this.position < this.postings.size() ? this.postings.get(this.position) : NO_MORE_DOCS;
+	}
+
+	@Override
+	public int advance(int target) {
+		this.position = this.postings.advance(Math.max(0, this.position), target);
+		return this.docID = this.position < this.postings.size() ? this.postings.get(this.position) : NO_MORE_DOCS;
+	}
+
+	@Override
+	public long cost() {
+		return this.postings.size();
+	}
+}
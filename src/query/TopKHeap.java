@@ -0,0 +1,111 @@
+package query;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Bounded heap of the k best scored documents, kept in primitive arrays.
+ * The root is the worst document of the heap: the lowest score, and the biggest doc ID among equal scores.
+ * Once the heap is full its root score is the threshold a document has to beat to get in.
+ */
+public class TopKHeap {
+
+	private final int[] docIDs;
+	private final double[] scores;
+	private int size;
+
+	/**
+	 * @param k number of documents to keep
+	 */
+	public TopKHeap(int k) {
+		this.docIDs = new int[Math.max(0, k)];
+		this.scores = new double[this.docIDs.length];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isFull() {
+		return this.size == this.docIDs.length;
+	}
+
+	/**
+	 * @return the score to beat to enter the heap, negative infinity while it is not full.
+	 */
+	public double threshold() {
+		if(!this.isFull()){
+			return Double.NEGATIVE_INFINITY;
+		}
+		return this.size == 0 ? Double.POSITIVE_INFINITY : this.scores[0];
+	}
+
+	/**
+	 * Adds a document if the heap is not full or if it scores more than the worst one, which is dropped.
+	 * @param docID
+	 * @param score
+	 * @return true if the document was added.
+	 */
+	public boolean offer(int docID, double score) {
+		if(!this.isFull()){
+			int position = this.size++;
+			//sift up
+			while(position > 0){
+				int parent = (position - 1) / 2;
+				if(!worse(score, docID, this.scores[parent], this.docIDs[parent])){
+					break;
+				}
+				this.docIDs[position] = this.docIDs[parent];
+				this.scores[position] = this.scores[parent];
+				position = parent;
+			}
+			this.docIDs[position] = docID;
+			this.scores[position] = score;
+			return true;
+		}
+		if(this.size == 0 || !worse(this.scores[0], this.docIDs[0], score, docID)){
+			return false;
+		}
+
+		//sift down from the root
+		int position = 0;
+		while(true){
+			int child = 2 * position + 1;
+			if(child >= this.size){
+				break;
+			}
+			if(child + 1 < this.size && worse(this.scores[child + 1], this.docIDs[child + 1], this.scores[child], this.docIDs[child])){
+				child++;
+			}
+			if(!worse(this.scores[child], this.docIDs[child], score, docID)){
+				break;
+			}
+			this.docIDs[position] = this.docIDs[child];
+			this.scores[position] = this.scores[child];
+			position = child;
+		}
+		this.docIDs[position] = docID;
+		this.scores[position] = score;
+		return true;
+	}
+
+	/**
+	 * @return the documents from the best to the worst score, doc ID order for equal scores.
+	 */
+	public List<ScoredDocument> toList() {
+		List<ScoredDocument> results = new ArrayList<ScoredDocument>(this.size);
+		for(int i = 0; i < this.size; i++){
+			results.add(new ScoredDocument(this.docIDs[i], this.scores[i]));
+		}
+		results.sort((a, b) -> {
+			int compare = Double.compare(b.getScore(), a.getScore());
+			return compare != 0 ? compare : Integer.compare(a.getDocID(), b.getDocID());
+		});
+		return results;
+	}
+
+	//a lower score is worse, and the bigger doc ID among equal scores
+	private static boolean worse(double score, int docID, double otherScore, int otherDocID) {
+		return score < otherScore || (score == otherScore && docID > otherDocID);
+	}
+}
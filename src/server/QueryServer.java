@@ -0,0 +1,357 @@
+package server;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import query.QueryCommand;
+import query.ScoredDocument;
+
+/**
+ * Local HTTP server for the queries, on the HTTP server of the JDK.
+ * The index is loaded once in the QueryCommand given to the server, which is shared by all the requests.
+ *
+ * GET /keyword?q=term
+ * GET /and?q=term1 term2 ...
+ * GET /or?q=term1 term2 ...
+ * GET /ranked?q=term1 term2 ...&amp;k=10
+ * GET /boolean?q=(term1 OR term2) AND NOT term3
+ * GET /explain?q=term1 AND term2 ...&amp;op=and
+ * GET /stats
+ *
+ * The responses are JSON, with the time spent on the query in the X-Query-Time-Micros header
+ * and the number of results in the X-Result-Count header.
+ * Each request runs on a virtual thread when the JVM has them (Java 21), on a cached thread pool before that.
+ */
+public class QueryServer {
+
+	public static final int DEFAULT_PORT = 8080;
+	public static final int DEFAULT_K = 10;
+
+	private static final String LATENCY_HEADER = "X-Query-Time-Micros";
+	private static final String COUNT_HEADER = "X-Result-Count";
+
+	private final QueryCommand queryCommand;
+	private final int port;
+	private HttpServer server;
+	private ExecutorService executor;
+
+	public QueryServer(QueryCommand queryCommand, int port) {
+		this.queryCommand = queryCommand;
+		this.port = port;
+	}
+
+	/**
+	 * Starts listening on the port, the requests are served until stop() is called.
+	 * @throws IOException if the port can not be opened
+	 */
+	public void start() throws IOException {
+		this.server = HttpServer.create(new InetSocketAddress(this.port), 0);
+		this.server.createContext("/keyword", new QueryHandler("keyword"));
+		this.server.createContext("/and", new QueryHandler("and"));
+		this.server.createContext("/or", new QueryHandler("or"));
+		this.server.createContext("/ranked", new QueryHandler("ranked"));
+		this.server.createContext("/boolean", new QueryHandler("boolean"));
+		this.server.createContext("/explain", new QueryHandler("explain"));
+		this.server.createContext("/stats", new QueryHandler("stats"));
+
+		this.executor = newRequestExecutor();
+		this.server.setExecutor(this.executor);
+		this.server.start();
+	}
+
+	/**
+	 * Stops the server, the requests that are running get up to delay seconds to finish.
+	 * @param delay in seconds
+	 */
+	public void stop(int delay) {
+		if(this.server != null){
+			this.server.stop(delay);
+			this.executor.shutdown();
+		}
+	}
+
+	/**
+	 * @return the port the server listens on, the one picked by the system if it was created with port 0.
+	 */
+	public int getPort() {
+		return this.server != null ? this.server.getAddress().getPort() : this.port;
+	}
+
+	/**
+	 * One virtual thread per request when the JVM has them. The method is looked up by reflection
+	 * so the project still builds and runs on Java 17, with a cached thread pool.
+	 * @return the executor of the requests
+	 */
+	static ExecutorService newRequestExecutor() {
+		try {
+			Method virtualThreads = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService) virtualThreads.invoke(null);
+		} catch (ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool();
+		}
+	}
+
+	//runs one kind of query, the terms are separated by spaces in the q parameter
+	private class QueryHandler implements HttpHandler {
+
+		private final String type;
+
+		QueryHandler(String type) {
+			this.type = type;
+		}
+
+		@Override
+		public void handle(HttpExchange exchange) throws IOException {
+			try {
+				if(!"GET".equals(exchange.getRequestMethod())){
+					sendError(exchange, 405, "only GET is supported");
+					return;
+				}
+				Map<String,String> parameters = parseQuery(exchange.getRequestURI().getRawQuery());
+				String query = parameters.get("q");
+				if(!this.type.equals("stats") && (query == null || query.trim().isEmpty())){
+					sendError(exchange, 400, "the q parameter is missing");
+					return;
+				}
+
+				long start = System.nanoTime();
+				StringBuilder json = new StringBuilder();
+				int count = this.run(query, parameters, json);
+				long micros = (System.nanoTime() - start) / 1000;
+
+				exchange.getResponseHeaders().set(LATENCY_HEADER, String.valueOf(micros));
+				exchange.getResponseHeaders().set(COUNT_HEADER, String.valueOf(count));
+				send(exchange, 200, json.toString());
+			} catch (IllegalArgumentException e) {
+				sendError(exchange, 400, e.getMessage());
+			} catch (IllegalStateException e) {
+				sendError(exchange, 503, e.getMessage());
+			} catch (RuntimeException e) {
+				e.printStackTrace();
+				sendError(exchange, 500, "the query failed");
+			} finally {
+				exchange.close();
+			}
+		}
+
+		/**
+		 * Runs the query and writes its JSON response.
+		 * @return the number of results
+		 */
+		private int run(String query, Map<String,String> parameters, StringBuilder json) {
+			String[] terms = query != null ? query.trim().split("\\s+") : new String[0];
+			switch(this.type){
+			case "keyword":
+				return writeResults(json, query.trim(), queryCommand.performKeywordQuery(query.trim()));
+			case "and":
+				return writeResults(json, query.trim(), queryCommand.performAndQuery(join(terms, "AND")));
+			case "or":
+				return writeResults(json, query.trim(), queryCommand.performOrQuery(join(terms, "OR")));
+			case "ranked":
+				int k = parseK(parameters.get("k"));
+				return writeScoredResults(json, query.trim(), k, queryCommand.performRankedQuery(String.join(" ", terms), k));
+			case "boolean":
+				return writeResults(json, query.trim(), queryCommand.performBooleanQuery(query));
+			case "explain":
+				String explained = join(terms, explainOperator(terms, parameters.get("op")));
+				json.append("{\"query\":").append(quote(query.trim()));
+				json.append(",\"plan\":").append(quote(queryCommand.explain(explained).toString())).append('}');
+				return 1;
+			default:
+				json.append("{\"terms\":").append(queryCommand.getIndex() != null ? queryCommand.getIndex().getTermCount() : 0);
+				json.append(",\"cache\":").append(quote(queryCommand.getResultCache().toString())).append('}');
+				return 1;
+			}
+		}
+	}
+
+	/**
+	 * The operator of an explained query: the op parameter, or the operator written between the terms.
+	 * Terms next to each other are joined with op, AND without it. The plans only have one operator, the other queries go to /boolean.
+	 * @param terms the words of the q parameter
+	 * @param op "and", "or" or null
+	 * @return AND or OR
+	 * @throws IllegalArgumentException if the query mixes AND and OR, or writes another operator than op
+	 */
+	static String explainOperator(String[] terms, String op) {
+		String operator = null;
+		if(op != null){
+			operator = op.toUpperCase(Locale.ROOT);
+			if(!operator.equals("AND") && !operator.equals("OR")){
+				throw new IllegalArgumentException("op has to be and or or");
+			}
+		}
+
+		//terms next to each other are joined with op, or with AND
+		String adjacent = operator != null ? operator : "AND";
+		boolean afterTerm = false;
+		String written = null;
+		for(String term : terms){
+			if(term.isEmpty()){
+				continue;
+			}
+			if(term.equals("AND") || term.equals("OR")){
+				if(!afterTerm || written != null){
+					throw new IllegalArgumentException("unexpected '" + term + "' in the query");
+				}
+				written = term;
+				continue;
+			}
+			if(afterTerm){
+				String between = written != null ? written : adjacent;
+				if(operator != null && !operator.equals(between)){
+					throw new IllegalArgumentException("the query mixes AND and OR, only one of them can be explained, /boolean runs both");
+				}
+				operator = between;
+			}
+			afterTerm = true;
+			written = null;
+		}
+		if(written != null){
+			throw new IllegalArgumentException("a term is missing after '" + written + "'");
+		}
+		return operator != null ? operator : "AND";
+	}
+
+	//the terms of the q parameter joined with the operator, the operators already there are dropped
+	private static String join(String[] terms, String operator) {
+		StringBuilder query = new StringBuilder();
+		for(String term : terms){
+			if(term.isEmpty() || term.equals("AND") || term.equals("OR")){
+				continue;
+			}
+			if(query.length() > 0){
+				query.append(' ').append(operator).append(' ');
+			}
+			query.append(term);
+		}
+		return query.toString();
+	}
+
+	private static int parseK(String k) {
+		if(k == null){
+			return DEFAULT_K;
+		}
+		try {
+			int value = Integer.parseInt(k);
+			if(value <= 0){
+				throw new IllegalArgumentException("k has to be positive");
+			}
+			return value;
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("k is not a number: " + k);
+		}
+	}
+
+	private static int writeResults(StringBuilder json, String query, List<Integer> results) {
+		int count = results.size();
+		json.append("{\"query\":").append(quote(query)).append(",\"count\":").append(count).append(",\"results\":[");
+		for(int i = 0; i < count; i++){
+			if(i > 0){
+				json.append(',');
+			}
+			json.append(results.get(i));
+		}
+		json.append("]}");
+		return count;
+	}
+
+	private static int writeScoredResults(StringBuilder json, String query, int k, List<ScoredDocument> results) {
+		json.append("{\"query\":").append(quote(query)).append(",\"k\":").append(k);
+		json.append(",\"count\":").append(results.size()).append(",\"results\":[");
+		for(int i = 0; i < results.size(); i++){
+			if(i > 0){
+				json.append(',');
+			}
+			ScoredDocument result = results.get(i);
+			json.append("{\"docID\":").append(result.getDocID());
+			json.append(",\"score\":").append(String.format(Locale.ROOT, "%.6f", result.getScore())).append('}');
+		}
+		json.append("]}");
+		return results.size();
+	}
+
+	//parameters of the query string, the last value wins
+	private static Map<String,String> parseQuery(String rawQuery) {
+		Map<String,String> parameters = new HashMap<String,String>();
+		if(rawQuery == null){
+			return parameters;
+		}
+		for(String pair : rawQuery.split("&")){
+			int equals = pair.indexOf('=');
+			String name = equals >= 0 ? pair.substring(0, equals) : pair;
+			String value = equals >= 0 ? pair.substring(equals + 1) : "";
+			parameters.put(decode(name), decode(value));
+		}
+		return parameters;
+	}
+
+	private static String decode(String value) {
+		try {
+			return URLDecoder.decode(value, "UTF-8");
+		} catch (UnsupportedEncodingException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	//a JSON string, with the quotes, backslashes and control characters escaped
+	static String quote(String value) {
+		StringBuilder quoted = new StringBuilder(value.length() + 2);
+		quoted.append('"');
+		for(int i = 0; i < value.length(); i++){
+			char c = value.charAt(i);
+			switch(c){
+			case '"':
+				quoted.append("\\\"");
+				break;
+			case '\\':
+				quoted.append("\\\\");
+				break;
+			case '\n':
+				quoted.append("\\n");
+				break;
+			case '\r':
+				quoted.append("\\r");
+				break;
+			case '\t':
+				quoted.append("\\t");
+				break;
+			default:
+				if(c < 0x20){
+					quoted.append(String.format("\\u%04x", (int) c));
+				}else{
+					quoted.append(c);
+				}
+			}
+		}
+		return quoted.append('"').toString();
+	}
+
+	private static void sendError(HttpExchange exchange, int status, String message) throws IOException {
+		send(exchange, status, "{\"error\":" + quote(String.valueOf(message)) + "}");
+	}
+
+	private static void send(HttpExchange exchange, int status, String json) throws IOException {
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+		exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+}
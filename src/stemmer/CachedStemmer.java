@@ -0,0 +1,138 @@
+package stemmer;
+
+/**
+ * Porter stemming of terms with a term -> stem cache shared between threads.
+ * Each thread has its own Stemmer that is reused for every word.
+ * The cache is a fixed size table indexed by the hash of the term, a term replaces the one
+ * that was in its slot, so its size is bounded and readers never lock. The entries are immutable,
+ * so a thread always sees a complete entry even when another one writes the same slot.
+ * Terms can be looked up from a slice of a char buffer, so a hit does not create any String.
+ */
+public class CachedStemmer {
+
+	public static final int DEFAULT_CACHE_SIZE = 1 << 18;
+
+	/**
+	 * A term and its stem.
+	 */
+	public static final class Stem {
+		private final String term;
+		private final String stem;
+		private final int hash;
+
+		private Stem(String term, String stem, int hash) {
+			this.term = term;
+			this.stem = stem;
+			this.hash = hash;
+		}
+
+		public String getTerm() {
+			return term;
+		}
+
+		public String getStem() {
+			return stem;
+		}
+	}
+
+	private final Stem[] cache;
+	private final int mask;
+	private final ThreadLocal<Stemmer> stemmers = ThreadLocal.withInitial(Stemmer::new);
+
+	public CachedStemmer() {
+		this(DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param maxSize maximum number of terms in the cache, rounded up to a power of two
+	 */
+	public CachedStemmer(int maxSize) {
+		int size = Integer.highestOneBit(Math.max(1, maxSize - 1)) << 1;
+		this.cache = new Stem[size];
+		this.mask = size - 1;
+	}
+
+	/**
+	 * @param term a lower case term
+	 * @return the stem of the term.
+	 */
+	public String stem(String term) {
+		int hash = term.hashCode();
+		int slot = slot(hash);
+		Stem cached = this.cache[slot];
+		if(cached != null && cached.hash == hash && (cached.term == term || cached.term.equals(term))){
+			return cached.stem;
+		}
+
+		Stemmer stemmer = this.stemmers.get();
+		stemmer.reset();
+		stemmer.add(term);
+		cached = new Stem(term, stemResult(stemmer, term), hash);
+		this.cache[slot] = cached;
+		return cached.stem;
+	}
+
+	/**
+	 * Stems the terms in place.
+	 * @param terms lower case terms
+	 */
+	public void stem(String[] terms) {
+		for(int i = 0; i < terms.length; i++){
+			terms[i] = this.stem(terms[i]);
+		}
+	}
+
+	/**
+	 * Looks up a term given as a slice of a char buffer.
+	 * @param w the buffer
+	 * @param offset start of the term
+	 * @param length length of the term
+	 * @return the term and its stem, the strings are only created when the term is not in the cache.
+	 */
+	public Stem lookup(char[] w, int offset, int length) {
+		int hash = 0;
+		for(int i = offset; i < offset + length; i++){
+			hash = 31 * hash + w[i];
+		}
+		int slot = slot(hash);
+		Stem cached = this.cache[slot];
+		if(cached != null && cached.hash == hash && sameChars(cached.term, w, offset, length)){
+			return cached;
+		}
+
+		String term = new String(w, offset, length);
+		Stemmer stemmer = this.stemmers.get();
+		stemmer.reset();
+		stemmer.add(w, offset, length);
+		cached = new Stem(term, stemResult(stemmer, term), hash);
+		this.cache[slot] = cached;
+		return cached;
+	}
+
+	private int slot(int hash) {
+		return (hash ^ (hash >>> 16)) & this.mask;
+	}
+
+	private static boolean sameChars(String term, char[] w, int offset, int length) {
+		if(term.length() != length){
+			return false;
+		}
+		for(int i = 0; i < length; i++){
+			if(term.charAt(i) != w[offset + i]){
+				return false;
+			}
+		}
+		return true;
+	}
+
+	//the term itself is returned when it has no suffix to strip
+	private static String stemResult(Stemmer stemmer, String term) {
+		stemmer.stem();
+		char[] result = stemmer.getResultBuffer();
+		int length = stemmer.getResultLength();
+		if(sameChars(term, result, 0, length)){
+			return term;
+		}
+		return new String(result, 0, length);
+	}
+}
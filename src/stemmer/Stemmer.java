@@ -86,6 +86,43 @@ public class Stemmer
       for (int c = 0; c < wLen; c++) b[i++] = w[c];
    }
 
+   /** Adds wLen characters starting at offset of a char[] array, so a
+    * slice of a bigger buffer can be stemmed without copying it first.
+    */
+
+   public void add(char[] w, int offset, int wLen)
+   {  if (i+wLen >= b.length)
+      {  char[] new_b = new char[i+wLen+INC];
+         for (int c = 0; c < i; c++) new_b[c] = b[c];
+         b = new_b;
+      }
+      System.arraycopy(w, offset, b, i, wLen);
+      i += wLen;
+   }
+
+   /** Adds the characters of a word, without going through toCharArray().
+    */
+
+   public void add(String w)
+   {  int wLen = w.length();
+      if (i+wLen >= b.length)
+      {  char[] new_b = new char[i+wLen+INC];
+         for (int c = 0; c < i; c++) new_b[c] = b[c];
+         b = new_b;
+      }
+      w.getChars(0, wLen, b, i);
+      i += wLen;
+   }
+
+   /** Drops the characters added so far, so the same Stemmer can be used
+    * for another word. stem() does this too once a word is stemmed.
+    */
+
+   public void reset()
+   {  i = 0;
+      i_end = 0;
+   }
+
    /**
     * After a word has been stemmed, it can be retrieved by toString(),
     * or a reference to the internal buffer can be retrieved by getResultBuffer
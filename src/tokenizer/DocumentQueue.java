@@ -0,0 +1,98 @@
+package tokenizer;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded hand-off of tokenized documents between the tokenizer threads and the SPIMI inverters.
+ * Producers put batches of documents and block when the queue is full, so only a fixed number of
+ * batches is ever in memory. Consumers read the documents through blocking iterators.
+ * The queue ends once every producer has called producerDone(), right away when there is no producer.
+ */
+public class DocumentQueue {
+
+	//put in the queue when all the producers are done, every consumer puts it back for the others
+	private static final List<DocumentIndex> END = Collections.emptyList();
+
+	private final BlockingQueue<List<DocumentIndex>> batches;
+	private final AtomicInteger producers;
+
+	/**
+	 * @param capacity maximum number of batches waiting in the queue
+	 * @param producers number of producers that will call producerDone(), the queue is already ended with none
+	 */
+	public DocumentQueue(int capacity, int producers) {
+		this.batches = new ArrayBlockingQueue<List<DocumentIndex>>(capacity);
+		this.producers = new AtomicInteger(producers);
+		//nobody would call producerDone(), the consumers would wait forever
+		if(producers <= 0){
+			this.batches.add(END);
+		}
+	}
+
+	/**
+	 * Adds a batch of documents, waiting while the queue is full.
+	 * @param batch
+	 * @throws InterruptedException
+	 */
+	public void put(List<DocumentIndex> batch) throws InterruptedException {
+		if(!batch.isEmpty()){
+			this.batches.put(batch);
+		}
+	}
+
+	/**
+	 * Called by each producer when it has no more documents, even if it failed.
+	 * @throws InterruptedException
+	 */
+	public void producerDone() throws InterruptedException {
+		if(this.producers.decrementAndGet() == 0){
+			this.batches.put(END);
+		}
+	}
+
+	/**
+	 * The iterator waits for the next batch in hasNext(). Each consumer needs its own iterator,
+	 * the documents are shared between all of them.
+	 * @return a blocking iterator over the documents.
+	 */
+	public Iterator<DocumentIndex> iterator() {
+		return new Iterator<DocumentIndex>() {
+
+			private Iterator<DocumentIndex> batch = Collections.emptyIterator();
+			private boolean ended;
+
+			@Override
+			public boolean hasNext() {
+				while(!this.ended && !this.batch.hasNext()){
+					try {
+						List<DocumentIndex> next = batches.take();
+						if(next == END){
+							batches.put(END);
+							this.ended = true;
+						}else{
+							this.batch = next.iterator();
+						}
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						throw new IllegalStateException("Interrupted while waiting for documents", e);
+					}
+				}
+				return this.batch.hasNext();
+			}
+
+			@Override
+			public DocumentIndex next() {
+				if(!this.hasNext()){
+					throw new NoSuchElementException();
+				}
+				return this.batch.next();
+			}
+		};
+	}
+}
@@ -0,0 +1,184 @@
+package tokenizer;
+
+/**
+ * Single pass scanner over the contents of a Reuters SGML file.
+ * Every <REUTERS ... NEWID="..."> tag starts a new document. The tags are skipped and the text
+ * between them is kept, written the way Jsoup.clean(text, Whitelist.none()) writes it:
+ * the characters <, > and & of the text are escaped, the entities of the file are kept as they are.
+ * This replaces the regex split of the file and the two Jsoup parses per document.
+ */
+public class SgmlScanner {
+
+	private static final String DOCUMENT_TAG = "REUTERS";
+	private static final String DOCUMENT_ID_ATTRIBUTE = "NEWID";
+
+	private final String contents;
+	private final int length;
+	private int position;
+
+	private String docID;
+	private final StringBuilder text = new StringBuilder(8192);
+
+	public SgmlScanner(String contents) {
+		this.contents = contents;
+		this.length = contents.length();
+		//skipping everything before the first document
+		this.position = this.findDocumentStart(0);
+	}
+
+	/**
+	 * Reads the next document.
+	 * @return false when there are no more documents.
+	 */
+	public boolean next() {
+		if(this.position >= this.length){
+			return false;
+		}
+
+		this.text.setLength(0);
+		this.docID = null;
+
+		//the REUTERS tag itself, with the NEWID attribute
+		this.position = this.scanTag(this.position, true);
+
+		while(this.position < this.length){
+			char c = this.contents.charAt(this.position);
+			if(c == '<' && this.isTagStart(this.position)){
+				if(this.isDocumentTag(this.position)){
+					break;
+				}
+				this.position = this.scanTag(this.position, false);
+			}else if(c == '&'){
+				this.position = this.scanAmpersand(this.position);
+			}else{
+				if(c == '<'){
+					this.text.append("&lt;");
+				}else if(c == '>'){
+					this.text.append("&gt;");
+				}else{
+					this.text.append(c);
+				}
+				this.position++;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * @return the NEWID of the current document, null if its tag has none.
+	 */
+	public String getDocID() {
+		return docID;
+	}
+
+	/**
+	 * @return the text of the current document, without the tags.
+	 */
+	public String getText() {
+		return this.text.toString();
+	}
+
+	private int findDocumentStart(int from) {
+		int start = this.contents.indexOf("<" + DOCUMENT_TAG, from);
+		while(start >= 0 && !this.isDocumentTag(start)){
+			start = this.contents.indexOf("<" + DOCUMENT_TAG, start + 1);
+		}
+		return start < 0 ? this.length : start;
+	}
+
+	//a tag starts with < followed by a letter, / or !, any other < is text
+	private boolean isTagStart(int at) {
+		if(at + 1 >= this.length){
+			return false;
+		}
+		char next = this.contents.charAt(at + 1);
+		return Character.isLetter(next) || next == '/' || next == '!';
+	}
+
+	//<REUTERS followed by the end of the tag name
+	private boolean isDocumentTag(int at) {
+		int end = at + 1 + DOCUMENT_TAG.length();
+		if(end >= this.length || !this.contents.startsWith(DOCUMENT_TAG, at + 1)){
+			return false;
+		}
+		char next = this.contents.charAt(end);
+		return next == '>' || Character.isWhitespace(next);
+	}
+
+	/**
+	 * Skips a tag, quoted attribute values can contain '>'.
+	 * @param at position of the '<'
+	 * @param documentTag true to read the NEWID attribute
+	 * @return the position after the '>'
+	 */
+	private int scanTag(int at, boolean documentTag) {
+		int i = at + 1;
+		while(i < this.length){
+			char c = this.contents.charAt(i);
+			if(c == '>'){
+				return i + 1;
+			}
+			if(c == '"' || c == '\''){
+				int close = this.contents.indexOf(c, i + 1);
+				if(close < 0){
+					return this.length;
+				}
+				if(documentTag && this.isAttribute(i, DOCUMENT_ID_ATTRIBUTE)){
+					this.docID = this.contents.substring(i + 1, close);
+				}
+				i = close + 1;
+			}else{
+				i++;
+			}
+		}
+		return this.length;
+	}
+
+	//checks if the quoted value at valueStart belongs to the attribute name (NAME="value")
+	private boolean isAttribute(int valueStart, String name) {
+		int equals = valueStart - 1;
+		while(equals > 0 && Character.isWhitespace(this.contents.charAt(equals))){
+			equals--;
+		}
+		if(this.contents.charAt(equals) != '='){
+			return false;
+		}
+		int nameEnd = equals;
+		while(nameEnd > 0 && Character.isWhitespace(this.contents.charAt(nameEnd - 1))){
+			nameEnd--;
+		}
+		int nameStart = nameEnd - name.length();
+		return nameStart > 0 && this.contents.regionMatches(true, nameStart, name, 0, name.length())
+				&& Character.isWhitespace(this.contents.charAt(nameStart - 1));
+	}
+
+	/**
+	 * Copies an entity (&name; or &#number;) as it is, a lone & is escaped.
+	 * &quot; and &apos; are decoded, like Jsoup does for text.
+	 * @param at position of the '&'
+	 * @return the position after the entity
+	 */
+	private int scanAmpersand(int at) {
+		int i = at + 1;
+		if(i < this.length && this.contents.charAt(i) == '#'){
+			i++;
+		}
+		while(i < this.length && Character.isLetterOrDigit(this.contents.charAt(i))){
+			i++;
+		}
+		if(i > at + 1 && i < this.length && this.contents.charAt(i) == ';'){
+			String entity = this.contents.substring(at, i + 1);
+			if(entity.equals("&quot;")){
+				this.text.append('"');
+			}else if(entity.equals("&apos;")){
+				this.text.append('\'');
+			}else{
+				this.text.append(entity);
+			}
+			return i + 1;
+		}
+		this.text.append("&amp;");
+		return at + 1;
+	}
+}
@@ -0,0 +1,96 @@
+package tokenizer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable set of stop words, checked in O(1) against whole terms.
+ * The 30 and 150 stop words lists are the first 30 and 150 words of the list below,
+ * they are built once and shared by the Tokenizer and the dictionary statistics of SPIMI.
+ * The words are cleaned like the terms of the TextNormalizer, which removes the apostrophes before
+ * the stop words are checked: "can't" is stored as "cant", and "it's" and "its" are the same word,
+ * so size() can be smaller than the number of words of the list.
+ */
+public class StopWords {
+
+	private static final String[] STOPWORDS = { "a", "about", "above", "after", "again", "against", "all", "am", "an", "and", "any",
+			"are", "aren't", "as", "at", "be", "because", "been", "before", "being", "below", "between", "both",
+			"but", "by", "can't", "cannot", "could", "couldn't", "did", "didn't", "do", "does", "doesn't", "doing",
+			"don't", "down", "during", "each", "few", "for", "from", "further", "had", "hadn't", "has", "hasn't",
+			"have", "haven't", "having", "he", "he'd", "he'll", "he's", "her", "here", "here's", "hers", "herself",
+			"him", "himself", "his", "how", "how's", "i", "i'd", "i'll", "i'm", "i've", "if", "in", "into", "is",
+			"isn't", "it", "it's", "its", "itself", "let's", "me", "more", "most", "mustn't", "my", "myself", "no",
+			"nor", "not", "of", "off", "on", "once", "only", "or", "other", "ought", "our", "ours", "ourselves",
+			"out", "over", "own", "same", "shan't", "she", "she'd", "she'll", "she's", "should", "shouldn't", "so",
+			"some", "such", "than", "that", "that's", "the", "their", "theirs", "them", "themselves", "then",
+			"there", "there's", "these", "they", "they'd", "they'll", "they're", "they've", "this", "those",
+			"through", "to", "too", "under", "until", "up", "very", "was", "wasn't", "we", "we'd", "we'll", "we're",
+			"we've", "were", "weren't", "what", "what's", "when", "when's", "where", "where's", "which", "while",
+			"who", "who's", "whom", "why", "why's", "with", "won't", "would", "wouldn't", "you", "you'd", "you'll",
+			"you're", "you've", "your", "yours", "yourself", "yourselves" };
+
+	//the lists taken from the start of STOPWORDS are built once per size
+	private static final Map<Integer, StopWords> FIRST = new ConcurrentHashMap<Integer, StopWords>();
+
+	public static final StopWords STOPWORDS_30 = first(30);
+	public static final StopWords STOPWORDS_150 = first(150);
+
+	private final Set<String> words;
+
+	private StopWords(Collection<String> words) {
+		Set<String> terms = new HashSet<String>();
+		for(String word : words){
+			terms.add(clean(word));
+		}
+		this.words = Collections.unmodifiableSet(terms);
+	}
+
+	//the word as the TextNormalizer gives it: without the removed punctuation and lower cased
+	private static String clean(String word) {
+		StringBuilder term = new StringBuilder(word.length());
+		for(int i = 0; i < word.length(); i++){
+			char c = word.charAt(i);
+			if(!TextNormalizer.isRemoved(c)){
+				term.append(c);
+			}
+		}
+		return term.toString().toLowerCase();
+	}
+
+	/**
+	 * @return a copy of the whole list of stop words, as they are written.
+	 */
+	static String[] list() {
+		return STOPWORDS.clone();
+	}
+
+	/**
+	 * @param numberOfStopWords how many words of the list to take, all of them if it is bigger than the list
+	 * @return the first stop words of the list.
+	 */
+	public static StopWords first(int numberOfStopWords) {
+		int size = Math.max(0, Math.min(numberOfStopWords, STOPWORDS.length));
+		return FIRST.computeIfAbsent(size, n -> new StopWords(Arrays.asList(STOPWORDS).subList(0, n)));
+	}
+
+	/**
+	 * @param words a custom list of stop words
+	 * @return the stop words.
+	 */
+	public static StopWords of(Collection<String> words) {
+		return new StopWords(words);
+	}
+
+	public boolean contains(String term) {
+		return this.words.contains(term);
+	}
+
+	public int size() {
+		return this.words.size();
+	}
+}
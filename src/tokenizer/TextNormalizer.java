@@ -0,0 +1,183 @@
+package tokenizer;
+
+import java.util.Arrays;
+
+import stemmer.CachedStemmer;
+
+/**
+ * Normalizes the text of a document and splits it in terms, in one pass over the characters.
+ * It does what the chain of replaceAll calls of the Tokenizer did:
+ * - numeric entities (&#3;) separate terms, &lt; &gt; and &amp; are removed
+ * - the punctuation , . " ' + - * ( ) is removed
+ * - the digits are removed (no numbers)
+ * - the terms are lower cased (case folding)
+ * - whitespace separates terms, empty terms are not returned
+ * - the stop words are dropped and the terms are stemmed, when they are set
+ * Not thread safe, the term buffer is reused between documents.
+ */
+public class TextNormalizer {
+
+	private boolean removeNumbers = true;
+	private boolean caseFolding = true;
+	private StopWords stopWords;
+	private CachedStemmer stemmer;
+
+	private char[] term = new char[64];
+	private String[] terms = new String[256];
+
+	public boolean isRemoveNumbers() {
+		return removeNumbers;
+	}
+
+	public void setRemoveNumbers(boolean removeNumbers) {
+		this.removeNumbers = removeNumbers;
+	}
+
+	public boolean isCaseFolding() {
+		return caseFolding;
+	}
+
+	public void setCaseFolding(boolean caseFolding) {
+		this.caseFolding = caseFolding;
+	}
+
+	public StopWords getStopWords() {
+		return stopWords;
+	}
+
+	//null to keep the stop words
+	public void setStopWords(StopWords stopWords) {
+		this.stopWords = stopWords;
+	}
+
+	public CachedStemmer getStemmer() {
+		return stemmer;
+	}
+
+	//null to not stem the terms
+	public void setStemmer(CachedStemmer stemmer) {
+		this.stemmer = stemmer;
+	}
+
+	/**
+	 * @param text the text of a document, without the tags
+	 * @return the normalized terms
+	 */
+	public String[] normalize(String text) {
+		int termCount = 0;
+		int termLength = 0;
+		boolean asciiTerm = true;
+		int length = text.length();
+
+		for(int i = 0; i < length; i++){
+			char c = text.charAt(i);
+
+			boolean separator = false;
+			if(c == '&'){
+				int entityEnd = numericEntityEnd(text, i);
+				if(entityEnd > 0){
+					separator = true;
+					i = entityEnd;
+				}else if(text.startsWith("&lt;", i) || text.startsWith("&gt;", i)){
+					i += 3;
+					continue;
+				}else if(text.startsWith("&amp;", i)){
+					i += 4;
+					continue;
+				}
+			}else if(isWhitespace(c)){
+				separator = true;
+			}else if(isRemoved(c) || (this.removeNumbers && c >= '0' && c <= '9')){
+				continue;
+			}
+
+			if(separator){
+				if(termLength > 0){
+					termCount = this.addTerm(termCount, termLength, asciiTerm);
+					termLength = 0;
+					asciiTerm = true;
+				}
+				continue;
+			}
+
+			if(this.caseFolding && c >= 'A' && c <= 'Z'){
+				c = (char) (c + ('a' - 'A'));
+			}else if(c >= 128){
+				asciiTerm = false;
+			}
+			if(termLength == this.term.length){
+				this.term = Arrays.copyOf(this.term, termLength * 2);
+			}
+			this.term[termLength++] = c;
+		}
+		if(termLength > 0){
+			termCount = this.addTerm(termCount, termLength, asciiTerm);
+		}
+
+		return Arrays.copyOf(this.terms, termCount);
+	}
+
+	private int addTerm(int termCount, int termLength, boolean asciiTerm) {
+		String value;
+		if(this.stemmer != null && asciiTerm){
+			//the stem is looked up from the buffer, a frequent term does not create any String
+			CachedStemmer.Stem stem = this.stemmer.lookup(this.term, 0, termLength);
+			if(this.stopWords != null && this.stopWords.contains(stem.getTerm())){
+				return termCount;
+			}
+			value = stem.getStem();
+		}else{
+			value = new String(this.term, 0, termLength);
+			//String.toLowerCase has special cases outside of ascii, it is only used there
+			if(this.caseFolding && !asciiTerm){
+				value = value.toLowerCase();
+			}
+			if(this.stopWords != null && this.stopWords.contains(value)){
+				return termCount;
+			}
+			if(this.stemmer != null){
+				value = this.stemmer.stem(value);
+			}
+		}
+		if(termCount == this.terms.length){
+			this.terms = Arrays.copyOf(this.terms, termCount * 2);
+		}
+		this.terms[termCount] = value;
+		return termCount + 1;
+	}
+
+	//end of a &#123; entity starting at i, -1 if there is none
+	private static int numericEntityEnd(String text, int i) {
+		if(i + 1 >= text.length() || text.charAt(i + 1) != '#'){
+			return -1;
+		}
+		int j = i + 2;
+		while(j < text.length() && text.charAt(j) >= '0' && text.charAt(j) <= '9'){
+			j++;
+		}
+		return j < text.length() && text.charAt(j) == ';' ? j : -1;
+	}
+
+	//the characters of \s in a regex
+	private static boolean isWhitespace(char c) {
+		return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f' || c == '\u000B';
+	}
+
+	//the punctuation removed from the terms, the stop words are cleaned the same way
+	static boolean isRemoved(char c) {
+		switch(c){
+		case ',':
+		case '.':
+		case '"':
+		case '\'':
+		case '+':
+		case '-':
+		case '*':
+		case '(':
+		case ')':
+			return true;
+		default:
+			return false;
+		}
+	}
+}
@@ -1,16 +1,20 @@
 package tokenizer;
 
 import tokenizer.DocumentIndex;
-import stemmer.Stemmer;
+import stemmer.CachedStemmer;
 
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.Charset;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 import org.jsoup.Jsoup;
@@ -25,6 +29,11 @@ public class Tokenizer {
 	private String fileContents;
 
 	private List<DocumentIndex> documentList;
+	private boolean useJsoup;
+	private final TextNormalizer normalizer = new TextNormalizer();
+
+	//shared by all the tokenizers so the stems of frequent terms are only computed once
+	private static final CachedStemmer STEMMER = new CachedStemmer();
 
 	public List<DocumentIndex> getDocumentList() {
 		return documentList;
@@ -47,6 +56,38 @@ public class Tokenizer {
 		this.fileContents = fileContents;
 	}
 
+	//to split the documents with Jsoup instead of the SgmlScanner, it is much slower
+	public void setUseJsoup(boolean useJsoup) {
+		this.useJsoup = useJsoup;
+	}
+
+	public boolean isUseJsoup() {
+		return useJsoup;
+	}
+
+	//to turn the compression techniques of the normalizer on and off
+	public TextNormalizer getNormalizer() {
+		return normalizer;
+	}
+
+	//COMPRESSION TECHNIQUES: StopWords.STOPWORDS_30, StopWords.STOPWORDS_150 or a custom list, null to keep them
+	public void setStopWords(StopWords stopWords) {
+		this.normalizer.setStopWords(stopWords);
+	}
+
+	public StopWords getStopWords() {
+		return this.normalizer.getStopWords();
+	}
+
+	//COMPRESSION TECHNIQUES: Porter stemmer
+	public void setStemming(boolean stemming) {
+		this.normalizer.setStemmer(stemming ? STEMMER : null);
+	}
+
+	public boolean isStemming() {
+		return this.normalizer.getStemmer() != null;
+	}
+
 	public String getFilename() {
 		return fileName;
 	}
@@ -55,43 +96,61 @@ public class Tokenizer {
 		this.fileName = filename;
 	}
 
-	//Reads the file 
-	private String readFile(Charset encoding) throws IOException, URISyntaxException {
-		ClassLoader classloader = Thread.currentThread().getContextClassLoader();
-		URL url = classloader.getResource(this.fileName);
-		byte[] encoded = Files.readAllBytes(Paths.get(url.toURI()));
+	//Reads the file, from the file system if the path exists, else from the classpath
+	private String readFile(Charset encoding) throws IOException {
+		Path path = Paths.get(this.fileName);
+		if(!Files.exists(path)){
+			ClassLoader classloader = Thread.currentThread().getContextClassLoader();
+			URL url = classloader.getResource(this.fileName);
+			if(url == null){
+				throw new FileNotFoundException(this.fileName);
+			}
+			try {
+				path = Paths.get(url.toURI());
+			} catch (URISyntaxException use) {
+				throw new IOException("Bad resource path for " + this.fileName, use);
+			}
+		}
+		byte[] encoded = Files.readAllBytes(path);
 		return new String(encoded, encoding);
 	}
 
 
 	/**
 	 * Reads the files with reuters news
+	 * @throws IOException if the file cannot be read
 	 */
-	public void readDocuments() {
-		String fileContents = "";
-		try {
-			fileContents = this.readFile(Charset.forName("utf-8"));
-			this.fileContents = fileContents;
-			this.tokenizeDocument();
-		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
-		} catch (URISyntaxException use) {
-			use.printStackTrace();
-		}
+	public void readDocuments() throws IOException {
+		this.fileContents = this.readFile(Charset.forName("utf-8"));
+		this.tokenizeDocument();
+	}
 
+	/**
+	 * Finds the Reuters collection files (*.sgm) in a directory.
+	 * @param directory
+	 * @return the paths of the files, sorted by name.
+	 * @throws IOException
+	 */
+	public static List<String> findCollectionFiles(String directory) throws IOException {
+		List<String> files = new ArrayList<String>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(Paths.get(directory), "*.sgm")) {
+			for(Path file : stream){
+				files.add(file.toString());
+			}
+		}
+		Collections.sort(files);
+		return files;
 	}
 
 	/**
 	 * tokenizes the document
 	 */
 	private void tokenizeDocument() {
-		this.removeStringGarbage();
 		this.splitFileContents();
 	}
 	
 	/**
-	 * Removes special characters
+	 * Removes special characters, only needed before Jsoup, the TextNormalizer handles them.
 	 */
 	private void removeStringGarbage() {
 		this.fileContents = this.fileContents.replaceAll("(?:&#[0-9]*;)", " ");
@@ -103,13 +162,30 @@ public class Tokenizer {
 	 * Splits the file contents.
 	 * Compression techniques are here.
 	 * Document ID is parsed using the NEWID tag.
-	 * We remove the html tags, and split by parsing the REUTERS HEADER.
+	 * We remove the html tags, and split by parsing the REUTERS HEADER, in one pass with the SgmlScanner
+	 * (or with Jsoup, see setUseJsoup).
 	 * WE apply the stemmer here, after that the documents are normalized/tokenized.
 	 */
 	private void splitFileContents() {
 		// Consists of docId and list of all documents
 		this.documentList = new ArrayList<DocumentIndex>();
 
+		if(this.useJsoup){
+			this.removeStringGarbage();
+			this.splitFileContentsWithJsoup();
+		}else{
+			SgmlScanner scanner = new SgmlScanner(this.fileContents);
+			while (scanner.next()) {
+				this.addDocument(scanner.getDocID(), scanner.getText());
+			}
+		}
+	}
+
+	/**
+	 * The old way of splitting the file: a regex split on the REUTERS header,
+	 * a Jsoup parse of the header for the docID and Jsoup.clean to remove the tags.
+	 */
+	private void splitFileContentsWithJsoup() {
 		// Splitting string by keeping delimiter
 		List<String> news = new ArrayList<String>();
 
@@ -120,117 +196,26 @@ public class Tokenizer {
 		//For each word in the news.
 		for (String tokens : news) {
 			String docID = parseDocumentID(tokens.split("\n")[0]);
-			tokens = Jsoup.clean(tokens, Whitelist.none());
-			tokens = cleanToken(tokens);
-			
-			//COMPRESSION TECHNIQUES
-			tokens = removeNumbers(tokens);
-			tokens = caseFolding(tokens);
-			//tokens = apply30stopwords(tokens);
-			//tokens = apply150stopwords(tokens);
-			
-			//Splits to get the terms.
-			String[] terms = tokens.split("\\s");
-
-			//filling up the documentlist.
-			DocumentIndex docIndex = new DocumentIndex(docID, terms);
-			this.documentList.add(docIndex);
+			this.addDocument(docID, Jsoup.clean(tokens, Whitelist.none()));
 		}
-		
-		//PorterStemmer
-		//applyStemmer();
 	}
-	
+
 	/**
-	 * Removing useless special characters found in the collection that were interfering with the creating of a good index.
-	 * @param tokens the string to clean
-	 * @return the cleaned token.
+	 * Normalizes the text of a document and adds it to the document list.
+	 * @param docID
+	 * @param tokens the text of the document, without the tags
 	 */
-	private static String cleanToken(String tokens){
-		tokens = tokens.replaceAll("\n|\r", " ");
-		tokens = tokens.replaceAll("\"", "");
-		tokens = tokens.replaceAll("&lt;", "");
-		tokens = tokens.replaceAll("&gt;", "");
-		tokens = tokens.replaceAll("\\+", "");
-		tokens = tokens.replaceAll("\\(|\\)", "");
-		tokens = tokens.replaceAll("\\*", "");
-		tokens = tokens.replaceAll("'", "");
-		tokens = tokens.replaceAll("&amp;", "");
-		tokens = tokens.replaceAll("-", "");
-		return tokens;
-	}
-	
-	
-	//COMPRESSION TECHNIQUES
-	private static String removeNumbers(String tokens){
-		tokens = tokens.replaceAll("[0-9]+", "");
-		return tokens;
-	}
-	
-	private static String caseFolding(String tokens){
-		tokens = tokens.toLowerCase();
-		return tokens;
-	}
-	
-	@SuppressWarnings("unused")
-	private static String apply30stopwords(String tokens){
-		tokens = removeStopWords(tokens,30);
-		return tokens;
-	}
-	
-	@SuppressWarnings("unused")
-	private static String apply150stopwords(String tokens){
-		tokens = removeStopWords(tokens,150);
-		return tokens;
-	}
-
-		
-	@SuppressWarnings("unused")
-	private void applyStemmer(){
-		Stemmer stemmer;
-		for(DocumentIndex docIndex : this.documentList){
-			 String [] terms = docIndex.getTerms();
-			 for(int i = 0;i<terms.length;i++){
-				 String term = terms[i];
-				 //starting the stemming
-				 stemmer = new Stemmer();
-				 stemmer.add(term.toCharArray(),term.length());
-				 stemmer.stem();
-				 terms[i] = stemmer.toString();
-			 }
-		}
-	}
-	
-	private static String removeStopWords(String tokens, int numberOfStopwords){
-		String[] stopwords = { "a", "about", "above", "after", "again", "against", "all", "am", "an", "and", "any",
-				"are", "aren't", "as", "at", "be", "because", "been", "before", "being", "below", "between", "both",
-				"but", "by", "can't", "cannot", "could", "couldn't", "did", "didn't", "do", "does", "doesn't", "doing",
-				"don't", "down", "during", "each", "few", "for", "from", "further", "had", "hadn't", "has", "hasn't",
-				"have", "haven't", "having", "he", "he'd", "he'll", "he's", "her", "here", "here's", "hers", "herself",
-				"him", "himself", "his", "how", "how's", "i", "i'd", "i'll", "i'm", "i've", "if", "in", "into", "is",
-				"isn't", "it", "it's", "its", "itself", "let's", "me", "more", "most", "mustn't", "my", "myself", "no",
-				"nor", "not", "of", "off", "on", "once", "only", "or", "other", "ought", "our", "ours", "ourselves",
-				"out", "over", "own", "same", "shan't", "she", "she'd", "she'll", "she's", "should", "shouldn't", "so",
-				"some", "such", "than", "that", "that's", "the", "their", "theirs", "them", "themselves", "then",
-				"there", "there's", "these", "they", "they'd", "they'll", "they're", "they've", "this", "those",
-				"through", "to", "too", "under", "until", "up", "very", "was", "wasn't", "we", "we'd", "we'll", "we're",
-				"we've", "were", "weren't", "what", "what's", "when", "when's", "where", "where's", "which", "while",
-				"who", "who's", "whom", "why", "why's", "with", "won't", "would", "wouldn't", "you", "you'd", "you'll",
-				"you're", "you've", "your", "yours", "yourself", "yourselves" };
-
-		
-		//to not break the program if we put bigger amt of stop words
-		if(numberOfStopwords >= stopwords.length) numberOfStopwords = stopwords.length;
-		
-		for (int i = 0; i < numberOfStopwords; i++) {
-
-			tokens = tokens.replaceAll(stopwords[i], " ");
+	private void addDocument(String docID, String tokens) {
+		//Normalizes and splits to get the terms.
+		//COMPRESSION TECHNIQUES (no numbers, case folding) are done by the normalizer
+		//the 30 or 150 stop words and the PorterStemmer too, see setStopWords and setStemming
+		String[] terms = this.normalizer.normalize(tokens);
 
-		}
-		
-		return tokens;
+		//filling up the documentlist.
+		DocumentIndex docIndex = new DocumentIndex(docID, terms);
+		this.documentList.add(docIndex);
 	}
-
+	
 	/**
 	 * Parses the document id from the NEWID tag from the reuters header.
 	 * @param reutersHeader
@@ -0,0 +1,203 @@
+package indexing;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+
+/**
+ * Every codec has to decode exactly what it encoded, and stop at the end of its own bytes.
+ */
+public class PostingsCodecTest {
+
+	private static final int[] LENGTHS = { 0, 1, 2, 27, 28, 29, 127, 128, 129, 255, 256, 257, 1000 };
+
+	//a byte that is not part of the encoding, to check that decode() stops at the right place
+	private static final int SENTINEL = 0x5A;
+
+	static List<PostingsCodec> codecs() {
+		return PostingsCodecs.all();
+	}
+
+	//the largest value the codec can encode
+	private static int maxValue(PostingsCodec codec) {
+		return codec instanceof SimpleCodec ? (1 << 28) - 1 : Integer.MAX_VALUE;
+	}
+
+	private static byte[] encode(PostingsCodec codec, int[] values) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bytes);
+		//the values do not start at the beginning of the buffer in the index either
+		out.writeByte(SENTINEL);
+		codec.encode(values, values.length, out);
+		out.writeByte(SENTINEL);
+		return bytes.toByteArray();
+	}
+
+	private static void assertRoundTrip(PostingsCodec codec, int[] values) throws IOException {
+		byte[] encoded = encode(codec, values);
+		int[] decoded = new int[values.length];
+		int end = codec.decode(ByteBuffer.wrap(encoded), 1, decoded, values.length);
+		assertArrayEquals(values, decoded, codec + " " + values.length + " values");
+		assertEquals(encoded.length - 1, end, codec + " end of " + values.length + " values");
+		assertEquals(SENTINEL, encoded[end], codec.toString());
+	}
+
+	private static int[] random(Random random, int length, int bits) {
+		int[] values = new int[length];
+		for(int i = 0; i < length; i++){
+			values[i] = bits == 0 ? 0 : random.nextInt() >>> (32 - bits);
+		}
+		return values;
+	}
+
+	@ParameterizedTest
+	@MethodSource("codecs")
+	public void randomValuesOfEveryWidth(PostingsCodec codec) throws IOException {
+		Random random = new Random(codec.getId());
+		int maxBits = 32 - Integer.numberOfLeadingZeros(maxValue(codec));
+		for(int length : LENGTHS){
+			for(int bits = 0; bits <= maxBits; bits++){
+				assertRoundTrip(codec, random(random, length, bits));
+			}
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("codecs")
+	public void zeros(PostingsCodec codec) throws IOException {
+		for(int length : LENGTHS){
+			assertRoundTrip(codec, new int[length]);
+		}
+	}
+
+	@ParameterizedTest
+	@MethodSource("codecs")
+	public void largestValues(PostingsCodec codec) throws IOException {
+		for(int length : LENGTHS){
+			int[] values = new int[length];
+			Arrays.fill(values, maxValue(codec));
+			assertRoundTrip(codec, values);
+		}
+		//the largest values between small ones
+		int[] values = new int[300];
+		for(int i = 0; i < values.length; i += 7){
+			values[i] = maxValue(codec) - i;
+		}
+		assertRoundTrip(codec, values);
+	}
+
+	@ParameterizedTest
+	@MethodSource("codecs")
+	public void postingsRoundTrip(PostingsCodec codec) throws IOException {
+		Random random = new Random(codec.getId());
+		for(int length : LENGTHS){
+			int[] docIDs = new int[length];
+			int[] frequencies = new int[length];
+			int docID = 0;
+			for(int i = 0; i < length; i++){
+				docID += 1 + random.nextInt(i % 50 == 0 ? 100000 : 20);
+				docIDs[i] = docID;
+				frequencies[i] = 1 + (random.nextInt(10) == 0 ? random.nextInt(1000) : 0);
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			DataOutputStream out = new DataOutputStream(bytes);
+			codec.encodePostings(docIDs, frequencies, length, out);
+			out.writeByte(SENTINEL);
+			byte[] encoded = bytes.toByteArray();
+
+			int[] decodedDocIDs = new int[length];
+			int[] decodedFrequencies = new int[length];
+			int end = codec.decodePostings(ByteBuffer.wrap(encoded), 0, decodedDocIDs, decodedFrequencies, length);
+			assertArrayEquals(docIDs, decodedDocIDs, codec + " doc IDs of " + length + " postings");
+			assertArrayEquals(frequencies, decodedFrequencies, codec + " frequencies of " + length + " postings");
+			assertEquals(encoded.length - 1, end, codec.toString());
+		}
+	}
+
+	@Test
+	public void simpleCodecsRejectValuesAbove28Bits() {
+		for(PostingsCodec codec : new PostingsCodec[] { PostingsCodecs.SIMPLE_9, PostingsCodecs.SIMPLE_16 }){
+			for(int value : new int[] { 1 << 28, Integer.MAX_VALUE, -1 }){
+				int[] values = { 1, 2, value, 3 };
+				IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+						() -> codec.encode(values, values.length, new DataOutputStream(new ByteArrayOutputStream())));
+				assertTrue(e.getMessage().contains("28 bits"), e.getMessage());
+			}
+		}
+	}
+
+	@Test
+	public void pforDeltaPatchesTheExceptions() throws IOException {
+		//small gaps with a few big ones: they are patched instead of widening the whole block
+		int[] values = new int[PForDeltaCodec.BLOCK_SIZE];
+		for(int i = 0; i < values.length; i++){
+			values[i] = i % 5;
+		}
+		values[0] = 1 << 20;
+		values[64] = Integer.MAX_VALUE;
+		values[127] = 1000;
+		byte[] encoded = encode(PostingsCodecs.PFOR_DELTA, values);
+		int bits = encoded[1];
+		int exceptions = encoded[2] & 0xFF;
+		assertEquals(3, bits);
+		assertEquals(3, exceptions);
+		assertRoundTrip(PostingsCodecs.PFOR_DELTA, values);
+
+		//every value of a block an exception, in the last partial block
+		int[] partial = new int[PForDeltaCodec.BLOCK_SIZE + 5];
+		Arrays.fill(partial, PForDeltaCodec.BLOCK_SIZE, partial.length, 1 << 30);
+		assertRoundTrip(PostingsCodecs.PFOR_DELTA, partial);
+	}
+
+	@Test
+	public void bitsRoundTrip() throws IOException {
+		Random random = new Random(7);
+		int[] widths = new int[2000];
+		int[] values = new int[widths.length];
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		BitOutput out = new BitOutput(new DataOutputStream(bytes));
+		for(int i = 0; i < widths.length; i++){
+			widths[i] = random.nextInt(33);
+			values[i] = widths[i] == 0 ? 0 : random.nextInt() >>> (32 - widths[i]);
+			if(i % 3 == 0){
+				//unary codes longer than a word too
+				values[i] = random.nextInt(i % 2 == 0 ? 8 : 100);
+				widths[i] = -1;
+				out.writeUnary(values[i]);
+			}else{
+				out.write(widths[i], values[i]);
+			}
+		}
+		out.flush();
+
+		BitInput in = new BitInput(ByteBuffer.wrap(bytes.toByteArray()), 0);
+		for(int i = 0; i < widths.length; i++){
+			int value = widths[i] < 0 ? in.readUnary() : in.read(widths[i]);
+			assertEquals(values[i], value, "value " + i);
+		}
+		assertEquals(bytes.size(), in.getPosition());
+	}
+
+	@Test
+	public void codecsByIdAndName() {
+		for(PostingsCodec codec : PostingsCodecs.all()){
+			assertEquals(codec, PostingsCodecs.forId(codec.getId()));
+			assertEquals(codec, PostingsCodecs.forName(codec.getName().toUpperCase()));
+		}
+		assertEquals(null, PostingsCodecs.forId(PostingsCodecs.all().size()));
+		assertThrows(IllegalArgumentException.class, () -> PostingsCodecs.forName("lz4"));
+	}
+}
@@ -0,0 +1,58 @@
+package indexing;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import tokenizer.DocumentIndex;
+
+/**
+ * A block or an index that can not be written has to fail the indexing, not leave a partial index behind.
+ */
+public class SPIMITest {
+
+	private static final List<DocumentIndex> DOCUMENTS = Arrays.asList(
+			new DocumentIndex("1", new String[] { "oil", "price" }),
+			new DocumentIndex("2", new String[] { "oil", "opec" }));
+
+	@TempDir
+	Path directory;
+
+	@Test
+	public void indexIsWritten() throws Exception {
+		SPIMI spimi = new SPIMI(0, 650000);
+		spimi.setDirectory(this.directory);
+		spimi.parallelSPIMIInvert(DOCUMENTS, 2);
+		spimi.mergeAllBlocks();
+		assertTrue(Files.size(this.directory.resolve(SPIMI.POSTINGS_FILE)) > 0);
+		assertEquals(3, spimi.readBlockAndConvertToDictionary(this.directory.resolve(SPIMI.DICTIONARY_FILE).toString()).size());
+	}
+
+	@Test
+	public void blockWriteFailureReachesTheCaller() {
+		SPIMI spimi = new SPIMI(0, 650000);
+		spimi.setDirectory(this.directory.resolve("missing"));
+		ExecutionException e = assertThrows(ExecutionException.class, () -> spimi.parallelSPIMIInvert(DOCUMENTS, 2));
+		assertTrue(e.getCause() instanceof UncheckedIOException, e.getCause().toString());
+	}
+
+	@Test
+	public void mergeFailureReachesTheCaller() throws Exception {
+		SPIMI spimi = new SPIMI(0, 650000);
+		spimi.setDirectory(this.directory);
+		spimi.parallelSPIMIInvert(DOCUMENTS, 1);
+		Files.delete(this.directory.resolve(SPIMI.blockFileName(1)));
+		assertThrows(IOException.class, () -> spimi.mergeAllBlocks());
+	}
+}
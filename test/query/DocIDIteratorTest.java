@@ -0,0 +1,158 @@
+package query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import indexing.PostingsList;
+
+/**
+ * The iterators of a boolean query have to give the same doc IDs as the query evaluated on sets,
+ * with next() and with advance().
+ */
+public class DocIDIteratorTest {
+
+	private static final int DOCUMENTS = 2000;
+	private static final int TERMS = 12;
+
+	private final Map<String, TreeSet<Integer>> sets = new HashMap<String, TreeSet<Integer>>();
+	private final TreeSet<Integer> allDocuments = new TreeSet<Integer>();
+	private IndexSnapshot index;
+
+	@BeforeEach
+	public void setUp() {
+		//from a few doc IDs to most of them, the long lists have skip pointers
+		Random random = new Random(42);
+		Map<String, PostingsList> dictionary = new HashMap<String, PostingsList>();
+		for(int t = 0; t < TERMS; t++){
+			String term = "t" + t;
+			double density = Math.pow(0.5, t % 8);
+			TreeSet<Integer> docIDs = new TreeSet<Integer>();
+			PostingsList postingsList = new PostingsList();
+			for(int docID = 0; docID < DOCUMENTS; docID++){
+				if(random.nextDouble() < density * 0.9){
+					docIDs.add(docID);
+					postingsList.add(docID);
+				}
+			}
+			this.sets.put(term, docIDs);
+			this.allDocuments.addAll(docIDs);
+			dictionary.put(term, postingsList);
+		}
+		this.index = IndexSnapshot.of(dictionary, null);
+	}
+
+	//the query on sets, NOT is the complement in all the documents
+	private TreeSet<Integer> evaluate(QueryNode node) {
+		TreeSet<Integer> result = new TreeSet<Integer>();
+		if(node instanceof QueryNode.Term){
+			TreeSet<Integer> docIDs = this.sets.get(((QueryNode.Term) node).getTerm());
+			if(docIDs != null){
+				result.addAll(docIDs);
+			}
+		}else if(node instanceof QueryNode.Prefix){
+			for(Map.Entry<String, TreeSet<Integer>> term : this.sets.entrySet()){
+				if(term.getKey().startsWith(((QueryNode.Prefix) node).getPrefix())){
+					result.addAll(term.getValue());
+				}
+			}
+		}else if(node instanceof QueryNode.Not){
+			result.addAll(this.allDocuments);
+			result.removeAll(this.evaluate(((QueryNode.Not) node).getChild()));
+		}else if(node instanceof QueryNode.And){
+			result.addAll(this.allDocuments);
+			for(QueryNode child : ((QueryNode.And) node).getChildren()){
+				result.retainAll(this.evaluate(child));
+			}
+		}else{
+			for(QueryNode child : ((QueryNode.Or) node).getChildren()){
+				result.addAll(this.evaluate(child));
+			}
+		}
+		return result;
+	}
+
+	private static String randomQuery(Random random, int depth) {
+		int kind = depth == 0 ? random.nextInt(3) : random.nextInt(8);
+		switch(kind){
+		case 0:
+		case 1:
+			//a term that is not in the index too
+			return "t" + random.nextInt(TERMS + 1);
+		case 2:
+			return "t" + (1 + random.nextInt(2)) + "*";
+		case 3:
+			return "NOT " + randomQuery(random, depth - 1);
+		default:
+			String[] operators = { " AND ", " OR ", " " };
+			StringBuilder query = new StringBuilder("(").append(randomQuery(random, depth - 1));
+			for(int i = 1 + random.nextInt(3); i > 0; i--){
+				query.append(operators[random.nextInt(operators.length)]).append(randomQuery(random, depth - 1));
+			}
+			return query.append(')').toString();
+		}
+	}
+
+	private static List<Integer> next(DocIDIterator iterator) {
+		List<Integer> docIDs = new ArrayList<Integer>();
+		for(int docID = iterator.next(); docID != DocIDIterator.NO_MORE_DOCS; docID = iterator.next()){
+			docIDs.add(docID);
+		}
+		return docIDs;
+	}
+
+	@Test
+	public void lazyEvaluationEqualsSetEvaluation() {
+		Random random = new Random(7);
+		for(int i = 0; i < 2000; i++){
+			String query = randomQuery(random, 1 + random.nextInt(3));
+			QueryNode node = QueryParser.parse(query);
+			assertEquals(new ArrayList<Integer>(this.evaluate(node)), next(node.iterator(this.index)), query);
+		}
+	}
+
+	@Test
+	public void advanceFindsTheFirstDocIDAtOrAfterTheTarget() {
+		Random random = new Random(11);
+		for(int i = 0; i < 500; i++){
+			String query = randomQuery(random, 1 + random.nextInt(3));
+			QueryNode node = QueryParser.parse(query);
+			TreeSet<Integer> expected = this.evaluate(node);
+			DocIDIterator iterator = node.iterator(this.index);
+			assertEquals(-1, iterator.docID(), query);
+
+			int docID = -1;
+			while(docID != DocIDIterator.NO_MORE_DOCS){
+				//jumps of any length, or a plain next()
+				if(random.nextInt(3) == 0){
+					Integer following = expected.higher(docID);
+					docID = iterator.next();
+					assertEquals(following != null ? following : DocIDIterator.NO_MORE_DOCS, docID, query + " next");
+				}else{
+					int target = docID + 1 + random.nextInt(random.nextBoolean() ? 5 : 400);
+					Integer ceiling = expected.ceiling(target);
+					docID = iterator.advance(target);
+					assertEquals(ceiling != null ? ceiling : DocIDIterator.NO_MORE_DOCS, docID, query + " advance to " + target);
+				}
+				assertEquals(docID, iterator.docID(), query);
+			}
+		}
+	}
+
+	@Test
+	public void queriesOfTheQueryCommandEqualSetEvaluation() {
+		QueryCommand qc = new QueryCommand();
+		qc.setIndex(this.index);
+		for(String query : new String[] { "t0 AND t3 AND NOT t5", "(t1 OR t2) NOT t4", "t1* AND NOT t11", "NOT t0", "t12 OR t7" }){
+			assertEquals(new ArrayList<Integer>(this.evaluate(QueryParser.parse(query))), qc.performBooleanQuery(query), query);
+		}
+	}
+}
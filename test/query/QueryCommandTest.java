@@ -0,0 +1,54 @@
+package query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import indexing.PostingsList;
+
+/**
+ * The queries return an empty list, never null, when their terms are not in the dictionary.
+ */
+public class QueryCommandTest {
+
+	private QueryCommand qc;
+
+	@BeforeEach
+	public void setUp() {
+		Map<String, PostingsList> dictionary = new HashMap<String, PostingsList>();
+		dictionary.put("oil", postings(1, 2, 2, 5));
+		dictionary.put("gas", postings(2, 3));
+		this.qc = new QueryCommand();
+		this.qc.setDictionary(dictionary);
+	}
+
+	private static PostingsList postings(int... docIDs) {
+		PostingsList postingsList = new PostingsList(docIDs.length);
+		for(int docID : docIDs){
+			postingsList.add(docID);
+		}
+		return postingsList;
+	}
+
+	@Test
+	public void missingTermsGiveEmptyResults() {
+		assertTrue(this.qc.performKeywordQuery("opec").isEmpty());
+		assertTrue(this.qc.performAndQuery("opec AND oil").isEmpty());
+		assertTrue(this.qc.performOrQuery("opec OR saudi").isEmpty());
+		assertTrue(this.qc.performBooleanQuery("opec").isEmpty());
+		assertEquals("[]", this.qc.performOrQuery("opec OR saudi").toString());
+	}
+
+	@Test
+	public void existingTermsAreFound() {
+		assertEquals(Arrays.asList(1, 2, 5), this.qc.performKeywordQuery("Oil"));
+		assertEquals(Arrays.asList(2), this.qc.performAndQuery("oil AND gas"));
+		assertEquals(Arrays.asList(2, 1, 3, 5), this.qc.performOrQuery("opec OR oil OR gas"));
+	}
+}
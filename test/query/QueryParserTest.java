@@ -0,0 +1,86 @@
+package query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The trees QueryParser builds, shown with toString(), which puts every group in parentheses,
+ * and the errors of the queries that are not well formed.
+ */
+public class QueryParserTest {
+
+	private static void assertParsed(String expected, String query) {
+		assertEquals(expected, QueryParser.parse(query).toString(), query);
+	}
+
+	private static void assertError(String message, String query) {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> QueryParser.parse(query), query);
+		assertEquals(message, e.getMessage(), query);
+	}
+
+	@Test
+	public void notBindsTighterThanAndTighterThanOr() {
+		assertParsed("(a OR (b AND c))", "a OR b AND c");
+		assertParsed("((a AND b) OR c)", "a AND b OR c");
+		assertParsed("((a AND NOT b) OR c)", "a AND NOT b OR c");
+		assertParsed("(NOT a OR b)", "NOT a OR b");
+		assertParsed("(NOT a AND b)", "NOT a AND b");
+		assertParsed("NOT (a OR b)", "NOT (a OR b)");
+		assertParsed("NOT NOT a", "NOT NOT a");
+		assertParsed("((a AND b) OR (c AND d) OR e)", "a AND b OR c AND d OR e");
+	}
+
+	@Test
+	public void termsNextToEachOtherAreAnAnd() {
+		assertParsed("(a OR (b AND c))", "a OR b c");
+		assertParsed("((a AND b) OR c)", "a b OR c");
+		assertParsed("(a AND b AND c)", "a b AND c");
+		assertParsed("(a AND NOT b)", "a NOT b");
+		assertParsed("(a AND (b OR c))", "a (b OR c)");
+		assertParsed("((a OR b) AND (c OR d))", "(a OR b)(c OR d)");
+	}
+
+	@Test
+	public void parenthesesGroup() {
+		assertParsed("a", "(a)");
+		assertParsed("(a OR b)", "((a OR b))");
+		assertParsed("((a OR b) AND c)", "(a OR b) AND c");
+		assertParsed("(a AND (b OR (c AND NOT d)))", "a AND (b OR (c AND NOT d))");
+	}
+
+	@Test
+	public void termsAndPrefixes() {
+		assertParsed("oil", "OIL");
+		assertTrue(QueryParser.parse("Oil*") instanceof QueryNode.Prefix);
+		assertParsed("oil*", "Oil*");
+		assertParsed("(oil* OR gas)", "oil* OR gas");
+		//the operators are upper case, the lower case words are terms
+		assertParsed("(oil AND and AND gas AND or AND not)", "oil and gas or not");
+		assertTrue(QueryParser.parse("a b") instanceof QueryNode.And);
+		assertTrue(QueryParser.parse("a OR b") instanceof QueryNode.Or);
+		assertTrue(QueryParser.parse("NOT a") instanceof QueryNode.Not);
+		assertTrue(QueryParser.parse("a") instanceof QueryNode.Term);
+	}
+
+	@Test
+	public void malformedQueries() {
+		assertError("the query is empty", "");
+		assertError("the query is empty", "   ");
+		assertError("a term is missing at the end of the query", "a AND");
+		assertError("a term is missing at the end of the query", "a OR");
+		assertError("a term is missing at the end of the query", "NOT");
+		assertError("a term is missing at the end of the query", "(");
+		assertError("unexpected 'AND' at token 1", "AND a");
+		assertError("unexpected 'OR' at token 3", "a OR OR b");
+		assertError("unexpected 'AND' at token 3", "a NOT AND b");
+		assertError("unexpected ')' at token 2", "a)");
+		assertError("unexpected ')' at token 2", "()");
+		assertError("missing ')' at token 5", "(a OR b");
+		assertError("'*' is not a prefix at token 1", "*");
+		assertError("'a**' is not a prefix at token 3", "b AND a**");
+		assertError("'a*b*' is not a prefix at token 1", "a*b*");
+	}
+}
@@ -0,0 +1,172 @@
+package query;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Random;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import indexing.TermDictionaryWriter;
+
+/**
+ * The front coded TermDictionary has to find the same terms as a TreeMap of the terms written in it,
+ * across the boundaries of its blocks.
+ */
+public class TermDictionaryTest {
+
+	private static final int BLOCK_SIZE = TermDictionaryWriter.BLOCK_SIZE;
+
+	@TempDir
+	Path directory;
+
+	//document frequency and postings offset of every term
+	private static NavigableMap<String, long[]> terms(int count) {
+		//a small alphabet, so many terms share long prefixes with the terms of the next block
+		Random random = new Random(count);
+		NavigableMap<String, long[]> terms = new TreeMap<String, long[]>();
+		while(terms.size() < count){
+			StringBuilder term = new StringBuilder();
+			for(int length = 1 + random.nextInt(6); term.length() < length; ){
+				term.append("bdoé".charAt(random.nextInt(4)));
+			}
+			terms.put(term.toString(), null);
+		}
+		long offset = 0;
+		for(Map.Entry<String, long[]> term : terms.entrySet()){
+			int documentFrequency = 1 + random.nextInt(1000);
+			term.setValue(new long[] { documentFrequency, offset });
+			offset += 1 + random.nextInt(100000);
+		}
+		return terms;
+	}
+
+	private TermDictionary write(NavigableMap<String, long[]> terms) throws IOException {
+		Path file = this.directory.resolve("terms" + terms.size() + ".bin");
+		try (TermDictionaryWriter writer = new TermDictionaryWriter(file.toString())) {
+			for(Map.Entry<String, long[]> term : terms.entrySet()){
+				writer.add(term.getKey(), (int) term.getValue()[0], term.getValue()[1]);
+			}
+			writer.setAllDocuments(7, 1234);
+		}
+		return new TermDictionary(ByteBuffer.wrap(Files.readAllBytes(file)), file.toString());
+	}
+
+	private static void assertEntries(SortedMap<String, long[]> expected, Iterator<TermDictionary.Entry> entries, String message) {
+		List<String> terms = new ArrayList<String>();
+		for(Map.Entry<String, long[]> term : expected.entrySet()){
+			assertTrue(entries.hasNext(), message + " ends before " + term.getKey());
+			TermDictionary.Entry entry = entries.next();
+			assertEntry(term.getKey(), term.getValue(), entry);
+			terms.add(entry.getTerm());
+		}
+		assertFalse(entries.hasNext(), message + " has more terms than " + terms);
+	}
+
+	private static void assertEntry(String term, long[] expected, TermDictionary.Entry entry) {
+		assertNotNull(entry, term);
+		assertEquals(term, entry.getTerm());
+		assertEquals(expected[0], entry.getDocumentFrequency(), term);
+		assertEquals(expected[1], entry.getPostingsOffset(), term);
+	}
+
+	@Test
+	public void exactHitsAndAbsentTerms() throws IOException {
+		for(int count : new int[] { 0, 1, BLOCK_SIZE - 1, BLOCK_SIZE, BLOCK_SIZE + 1, 10 * BLOCK_SIZE + 5 }){
+			NavigableMap<String, long[]> terms = terms(count);
+			TermDictionary dictionary = this.write(terms);
+			assertEquals(count, dictionary.size());
+			assertEquals(7, dictionary.getDocumentCount());
+			assertEquals(1234, dictionary.getAllDocumentsOffset());
+
+			for(Map.Entry<String, long[]> term : terms.entrySet()){
+				assertEntry(term.getKey(), term.getValue(), dictionary.get(term.getKey()));
+			}
+
+			//before the first term, after the last one, and between the terms of a block and of two blocks
+			for(String absent : new String[] { "", "a", "aaa", "c", "bc", "p", "z", "zzzz", "é", "éé", "éz" }){
+				if(!terms.containsKey(absent)){
+					assertNull(dictionary.get(absent), absent);
+				}
+			}
+			for(String term : terms.keySet()){
+				for(String absent : new String[] { term + "a", term + "c", term + "z", term.substring(0, term.length() - 1) + "c" }){
+					if(!terms.containsKey(absent)){
+						assertNull(dictionary.get(absent), absent);
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void prefixes() throws IOException {
+		NavigableMap<String, long[]> terms = terms(10 * BLOCK_SIZE + 5);
+		TermDictionary dictionary = this.write(terms);
+		List<String> sorted = new ArrayList<String>(terms.keySet());
+
+		assertEntries(terms, dictionary.prefix(""), "the empty prefix");
+
+		boolean crossesBlocks = false;
+		List<String> prefixes = new ArrayList<String>();
+		for(String term : terms.keySet()){
+			for(int length = 1; length <= term.length(); length++){
+				prefixes.add(term.substring(0, length));
+			}
+		}
+		prefixes.add("a");
+		prefixes.add("bc");
+		prefixes.add("z");
+		for(String prefix : prefixes){
+			SortedMap<String, long[]> expected = terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+			assertEntries(expected, dictionary.prefix(prefix), "prefix " + prefix);
+			if(!expected.isEmpty()){
+				int first = sorted.indexOf(expected.firstKey()) / BLOCK_SIZE;
+				int last = sorted.indexOf(expected.lastKey()) / BLOCK_SIZE;
+				crossesBlocks |= first != last;
+			}
+		}
+		assertTrue(crossesBlocks, "no prefix crosses a block boundary");
+	}
+
+	@Test
+	public void ranges() throws IOException {
+		NavigableMap<String, long[]> terms = terms(10 * BLOCK_SIZE + 5);
+		TermDictionary dictionary = this.write(terms);
+		List<String> sorted = new ArrayList<String>(terms.keySet());
+
+		assertEntries(terms, dictionary.range(null, null), "the whole dictionary");
+		List<String> bounds = new ArrayList<String>();
+		for(int i = 0; i < sorted.size(); i += 3){
+			bounds.add(sorted.get(i));
+			bounds.add(sorted.get(i) + "c");
+		}
+		bounds.add("");
+		bounds.add("a");
+		bounds.add("z");
+		for(String from : bounds){
+			assertEntries(terms.tailMap(from, true), dictionary.range(from, null), "from " + from);
+			assertEntries(terms.headMap(from, false), dictionary.range(null, from), "to " + from);
+			for(int i = 0; i < bounds.size(); i += 7){
+				String to = bounds.get(i);
+				SortedMap<String, long[]> expected = from.compareTo(to) <= 0 ? terms.subMap(from, true, to, false) : new TreeMap<String, long[]>();
+				assertEntries(expected, dictionary.range(from, to), from + " to " + to);
+			}
+		}
+	}
+}
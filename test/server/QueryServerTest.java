@@ -0,0 +1,118 @@
+package server;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import indexing.PostingsList;
+import query.QueryCommand;
+
+/**
+ * /explain explains the query with the operator it is written with, or the op parameter,
+ * and refuses the queries that mix AND and OR.
+ */
+public class QueryServerTest {
+
+	private QueryServer server;
+
+	@BeforeEach
+	public void setUp() throws IOException {
+		Map<String, PostingsList> dictionary = new HashMap<String, PostingsList>();
+		for(String term : new String[] { "a", "b", "c" }){
+			PostingsList postingsList = new PostingsList();
+			postingsList.add(term.charAt(0));
+			postingsList.add(100);
+			dictionary.put(term, postingsList);
+		}
+		QueryCommand qc = new QueryCommand();
+		qc.setDictionary(dictionary);
+		this.server = new QueryServer(qc, 0);
+		this.server.start();
+	}
+
+	@AfterEach
+	public void tearDown() {
+		this.server.stop(0);
+	}
+
+	private static String operator(String query, String op) {
+		return QueryServer.explainOperator(query.split("\\s+"), op);
+	}
+
+	@Test
+	public void operatorOfTheExplainedQuery() {
+		assertEquals("AND", operator("a", null));
+		assertEquals("AND", operator("a b c", null));
+		assertEquals("AND", operator("a AND b c", null));
+		assertEquals("OR", operator("a OR b OR c", null));
+		assertEquals("OR", operator("a b", "or"));
+		assertEquals("OR", operator("a OR b", "OR"));
+		assertEquals("AND", operator("a", "and"));
+	}
+
+	@Test
+	public void mixedOperatorsAreRefused() {
+		assertThrows(IllegalArgumentException.class, () -> operator("a OR b c", null));
+		assertThrows(IllegalArgumentException.class, () -> operator("a b OR c", null));
+		assertThrows(IllegalArgumentException.class, () -> operator("a AND b OR c", null));
+		assertThrows(IllegalArgumentException.class, () -> operator("a OR b", "and"));
+		assertThrows(IllegalArgumentException.class, () -> operator("a b", "or not"));
+		assertThrows(IllegalArgumentException.class, () -> operator("OR a", null));
+		assertThrows(IllegalArgumentException.class, () -> operator("a OR", null));
+		assertThrows(IllegalArgumentException.class, () -> operator("a AND OR b", null));
+	}
+
+	private int get(String path, StringBuilder body) throws IOException {
+		HttpURLConnection connection = (HttpURLConnection) new URL("http://localhost:" + this.server.getPort() + path).openConnection();
+		try {
+			int status = connection.getResponseCode();
+			try (InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream()) {
+				ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+				byte[] buffer = new byte[1024];
+				for(int n = in.read(buffer); n >= 0; n = in.read(buffer)){
+					bytes.write(buffer, 0, n);
+				}
+				body.append(new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+			}
+			return status;
+		} finally {
+			connection.disconnect();
+		}
+	}
+
+	private static String q(String query) throws IOException {
+		return URLEncoder.encode(query, "UTF-8");
+	}
+
+	@Test
+	public void explainOverHttp() throws IOException {
+		StringBuilder body = new StringBuilder();
+		assertEquals(200, this.get("/explain?q=" + q("a OR b OR c"), body));
+		assertTrue(body.toString().contains("OR"), body.toString());
+
+		body.setLength(0);
+		assertEquals(200, this.get("/explain?q=" + q("a b") + "&op=or", body));
+		assertTrue(body.toString().contains("OR"), body.toString());
+
+		body.setLength(0);
+		assertEquals(400, this.get("/explain?q=" + q("a OR b c"), body));
+		assertTrue(body.toString().contains("mixes AND and OR"), body.toString());
+
+		body.setLength(0);
+		assertEquals(400, this.get("/explain?q=" + q("a b") + "&op=xor", body));
+	}
+}
@@ -0,0 +1,88 @@
+package tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The consumers of the queue have to see every document once and then the end of the queue,
+ * whatever the number of producers.
+ */
+public class DocumentQueueTest {
+
+	private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+	@Test
+	public void noProducerEndsTheQueue() {
+		DocumentQueue queue = new DocumentQueue(4, 0);
+		assertTimeoutPreemptively(TIMEOUT, () -> {
+			assertFalse(queue.iterator().hasNext());
+			assertFalse(queue.iterator().hasNext());
+		});
+	}
+
+	@Test
+	public void everyConsumerSeesTheEndAfterAllTheProducers() throws Exception {
+		int producers = 5;
+		int batchesPerProducer = 20;
+		int consumers = 3;
+		DocumentQueue queue = new DocumentQueue(2, producers);
+
+		ExecutorService es = Executors.newFixedThreadPool(producers + consumers);
+		try {
+			for(int p = 0; p < producers; p++){
+				int producer = p;
+				es.submit(() -> {
+					try {
+						for(int b = 0; b < batchesPerProducer; b++){
+							String docID = Integer.toString(producer * batchesPerProducer + b);
+							queue.put(Arrays.asList(new DocumentIndex(docID, new String[] { "term" })));
+						}
+						//an empty batch is not put, it must not end the queue
+						queue.put(Collections.<DocumentIndex>emptyList());
+					} finally {
+						queue.producerDone();
+					}
+					return null;
+				});
+			}
+
+			List<Future<List<String>>> consumed = new ArrayList<Future<List<String>>>();
+			for(int c = 0; c < consumers; c++){
+				consumed.add(es.submit(() -> {
+					List<String> docIDs = new ArrayList<String>();
+					for(Iterator<DocumentIndex> documents = queue.iterator(); documents.hasNext(); ){
+						docIDs.add(documents.next().getDocID());
+					}
+					return docIDs;
+				}));
+			}
+
+			List<Integer> docIDs = new ArrayList<Integer>();
+			for(Future<List<String>> future : consumed){
+				for(String docID : assertTimeoutPreemptively(TIMEOUT, () -> future.get())){
+					docIDs.add(Integer.parseInt(docID));
+				}
+			}
+			Collections.sort(docIDs);
+			assertEquals(producers * batchesPerProducer, docIDs.size());
+			for(int i = 0; i < docIDs.size(); i++){
+				assertEquals(i, docIDs.get(i).intValue());
+			}
+		} finally {
+			es.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,65 @@
+package tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import stemmer.CachedStemmer;
+
+/**
+ * Every word of the stop words lists has to be removed by the TextNormalizer,
+ * the words with an apostrophe too.
+ */
+public class StopWordsTest {
+
+	private static final String[] LIST = StopWords.list();
+
+	@Test
+	public void everyWordIsContainedOnceNormalized() {
+		TextNormalizer normalizer = new TextNormalizer();
+		StopWords stopWords = StopWords.first(LIST.length);
+		for(String word : LIST){
+			String[] terms = normalizer.normalize(word);
+			assertEquals(1, terms.length, word);
+			assertTrue(stopWords.contains(terms[0]), word);
+		}
+	}
+
+	@Test
+	public void everyWordIsRemovedByTheNormalizer() {
+		for(int size : new int[] { 30, 150, LIST.length }){
+			String[] words = Arrays.copyOf(LIST, size);
+			assertRemoved(StopWords.first(size), null, words);
+			assertRemoved(StopWords.first(size), new CachedStemmer(), words);
+		}
+	}
+
+	@Test
+	public void wordsWithAnApostropheAreRemoved() {
+		TextNormalizer normalizer = new TextNormalizer();
+		normalizer.setStopWords(StopWords.STOPWORDS_30);
+		assertArrayEquals(new String[] { "car", "go" }, normalizer.normalize("A car CAN'T go, couldn't be"));
+	}
+
+	@Test
+	public void customWordsAreCleanedLikeTheTerms() {
+		StopWords stopWords = StopWords.of(Arrays.asList("Don't", "U.S.", "it's", "its"));
+		assertEquals(3, stopWords.size());
+		assertTrue(stopWords.contains("dont"));
+		assertTrue(stopWords.contains("us"));
+		assertTrue(stopWords.contains("its"));
+	}
+
+	private static void assertRemoved(StopWords stopWords, CachedStemmer stemmer, String[] words) {
+		TextNormalizer normalizer = new TextNormalizer();
+		normalizer.setStopWords(stopWords);
+		normalizer.setStemmer(stemmer);
+		for(String word : words){
+			assertEquals(0, normalizer.normalize(word).length, word + " with " + stopWords.size() + " stop words");
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package tokenizer;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * The TextNormalizer has to give the same terms as the chain of replaceAll and toLowerCase calls
+ * the Tokenizer used before it, on every document of the collection.
+ */
+public class TextNormalizerTest {
+
+	private static final String COLLECTION_DIRECTORY = "resources";
+
+	/**
+	 * The normalization of the Tokenizer before the TextNormalizer: removeStringGarbage, cleanToken,
+	 * removeNumbers, caseFolding and the split on whitespace, without the empty terms SPIMI dropped.
+	 */
+	static String[] legacyNormalize(String tokens) {
+		//removeStringGarbage
+		tokens = tokens.replaceAll("(?:&#[0-9]*;)", " ");
+		tokens = tokens.replaceAll("\\,*", "");
+		tokens = tokens.replaceAll("\\.*", "");
+
+		//cleanToken
+		tokens = tokens.replaceAll("\n|\r", " ");
+		tokens = tokens.replaceAll("\"", "");
+		tokens = tokens.replaceAll("&lt;", "");
+		tokens = tokens.replaceAll("&gt;", "");
+		tokens = tokens.replaceAll("\\+", "");
+		tokens = tokens.replaceAll("\\(|\\)", "");
+		tokens = tokens.replaceAll("\\*", "");
+		tokens = tokens.replaceAll("'", "");
+		tokens = tokens.replaceAll("&amp;", "");
+		tokens = tokens.replaceAll("-", "");
+
+		//removeNumbers and caseFolding
+		tokens = tokens.replaceAll("[0-9]+", "");
+		tokens = tokens.toLowerCase();
+
+		List<String> terms = new ArrayList<String>();
+		for(String term : tokens.split("\\s")){
+			if(!term.isEmpty()){
+				terms.add(term);
+			}
+		}
+		return terms.toArray(new String[terms.size()]);
+	}
+
+	@Test
+	public void sameTermsAsTheLegacyChainOnTheCollection() throws IOException {
+		assumeTrue(Files.isDirectory(Paths.get(COLLECTION_DIRECTORY)), "the collection is not in " + COLLECTION_DIRECTORY);
+		List<String> files = Tokenizer.findCollectionFiles(COLLECTION_DIRECTORY);
+		assumeTrue(!files.isEmpty(), "the collection is not in " + COLLECTION_DIRECTORY);
+
+		TextNormalizer normalizer = new TextNormalizer();
+		int documents = 0;
+		for(String file : files){
+			SgmlScanner scanner = new SgmlScanner(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+			while(scanner.next()){
+				String text = scanner.getText();
+				assertArrayEquals(legacyNormalize(text), normalizer.normalize(text), "document " + scanner.getDocID() + " of " + file);
+				documents++;
+			}
+		}
+		assertEquals(21578, documents);
+	}
+
+	@Test
+	public void sameTermsAsTheLegacyChainOnPunctuationAndEntities() {
+		String[] texts = {
+			"Jimmy Carter's \"plan\" (for U.S. oil) -- 3.5 pct +12*",
+			"AT&amp;T &lt;TELEX&gt; 1,000&#3; shares&#22;of STOCK",
+			"  leading, trailing.\n\r\tand\u000Bvertical\fspaces  ",
+			"&#; &# &amp &lt;&gt;&amp;",
+			"ÉTATS-UNIS ZÜRICH café 123abc456",
+			""
+		};
+		TextNormalizer normalizer = new TextNormalizer();
+		for(String text : texts){
+			assertArrayEquals(legacyNormalize(text), normalizer.normalize(text), text);
+		}
+	}
+}